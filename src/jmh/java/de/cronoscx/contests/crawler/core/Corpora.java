@@ -0,0 +1,79 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.util.Random;
+
+/**
+ * Deterministically generated HTML documents which represent typical page shapes for parsing benchmarks.
+ */
+public final class Corpora {
+    static final String QUERY = "Door-to-Door";
+
+    public enum Shape {
+        /**
+         * many nested elements with lots of attributes, only few hyperlinks
+         */
+        TAG_DENSE,
+        /**
+         * navigation-heavy page consisting mostly of hyperlinks
+         */
+        LINK_HEAVY,
+        /**
+         * long article with mostly plain text
+         */
+        TEXT_HEAVY
+    }
+
+    private Corpora() {
+    }
+
+    /**
+     * Generates a document of (roughly) the given number of characters; the query is planted at the very end if
+     * requested.
+     */
+    static String generate(Shape shape, int characters, boolean withQuery) {
+        final var random = new Random(42);
+        final var html = new StringBuilder(characters + 1024)
+                .append("<!DOCTYPE html><html><head><title>Synthetic</title>")
+                .append("<base href=\"/section/\">")
+                .append("<link rel=\"stylesheet\" href=\"/style.css\"></head><body>\n");
+        var index = 0;
+        while (html.length() < characters) {
+            index++;
+            switch (shape) {
+                case TAG_DENSE -> {
+                    html.append("<div class=\"row c-").append(index % 17).append("\" data-id=\"").append(index)
+                            .append("\" style=\"margin:0;padding:").append(random.nextInt(9)).append("px\">");
+                    html.append("<span class=\"label\" title=\"item ").append(index).append("\">")
+                            .append("Item ").append(index).append("</span>");
+                    if (index % 10 == 0) {
+                        html.append("<a class=\"more\" target=\"_blank\" href=\"/items/").append(index)
+                                .append("\">more</a>");
+                    }
+                    html.append("</div>\n");
+                }
+                case LINK_HEAVY -> html.append("<li><a class=\"nav-link\" href=\"")
+                        .append(switch (index % 8) {
+                            case 0 -> "#section-" + index;
+                            case 1 -> "mailto:team" + index + "@example.com";
+                            case 2 -> "/search?page=" + index;
+                            case 3 -> "https://www.example.com/partner/" + index;
+                            default -> "pages/" + index + ".html";
+                        })
+                        .append("\">Link ").append(index).append("</a></li>\n");
+                case TEXT_HEAVY -> {
+                    html.append("<p>");
+                    for (int word = 0; word < 40; word++) {
+                        html.append((char) ('a' + random.nextInt(26)))
+                                .append("orem ipsum dolor ");
+                    }
+                    html.append("Door-to-Doo</p>\n");
+                }
+            }
+        }
+        if (withQuery) {
+            html.append("<p>").append(QUERY).append("</p>");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+}
@@ -0,0 +1,77 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the former regular expression based extraction with the single-pass {@link PageScanner}; the scanner is
+ * measured with a single query and with many queries at once (which should cost about the same).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+    @Param({"TAG_DENSE", "LINK_HEAVY", "TEXT_HEAVY"})
+    private Corpora.Shape shape;
+    @Param({"false", "true"})
+    private boolean withQuery;
+    @Param({"100000"})
+    private int characters;
+    private String body;
+    private Set<String> queries;
+
+    @Setup
+    public void setup() {
+        body = Corpora.generate(shape, characters, withQuery);
+        queries = IntStream.range(0, 16)
+                .mapToObj(i -> i == 0 ? Corpora.QUERY : "Door-to-Door %d".formatted(i))
+                .collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        final var result = RegexExtraction.extract(body, Corpora.QUERY);
+        blackhole.consume(result.found());
+        blackhole.consume(result.baseHref());
+        blackhole.consume(result.hrefs());
+    }
+
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        final var scanner = new PageScanner(Corpora.QUERY);
+        scanner.feed(body);
+        scanner.finish();
+        blackhole.consume(scanner.found());
+        blackhole.consume(scanner.baseHref());
+        blackhole.consume(scanner.hrefs());
+    }
+
+    @Benchmark
+    public void scannerManyQueries(Blackhole blackhole) {
+        final var scanner = new PageScanner(queries);
+        scanner.feed(body);
+        scanner.finish();
+        blackhole.consume(scanner.matches());
+        blackhole.consume(scanner.baseHref());
+        blackhole.consume(scanner.hrefs());
+    }
+
+}
@@ -0,0 +1,138 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the bookkeeping of {@link Memory} under contention (several platform or many virtual threads working on a
+ * shared pool of sources) and the cost of {@link Memory#statistics()} for a given history size.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemoryBenchmark {
+    private static final int VIRTUAL_THREADS = 1_000;
+    private static final int CLAIMS_PER_THREAD = 100;
+
+    @State(Scope.Benchmark)
+    public static class Contended {
+        @Param({"1024", "65536"})
+        private int sources;
+        private URI[] pool;
+        private Memory memory;
+
+        @Setup(Level.Trial)
+        public void setupPool() {
+            pool = IntStream.range(0, sources)
+                    .mapToObj(index -> URI.create("http://my-site.com/page/" + index))
+                    .toArray(URI[]::new);
+        }
+
+        @Setup(Level.Iteration)
+        public void setupMemory() {
+            memory = new Memory();
+        }
+
+        URI next() {
+            return pool[ThreadLocalRandom.current().nextInt(pool.length)];
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Filled {
+        @Param({"10000", "100000"})
+        private int history;
+        private Memory memory;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            memory = new Memory();
+            final var references = IntStream.range(0, 20)
+                    .mapToObj(index -> URI.create("http://my-site.com/link/" + index))
+                    .toList();
+            for (int index = 0; index < history; index++) {
+                final var source = URI.create("http://my-site.com/page/" + index);
+                memory.findOrCall(source, uri -> new Scout.Report(uri, "query", false, references, 25_000));
+            }
+        }
+    }
+
+    private static Scout.Report report(URI source) {
+        return new Scout.Report(source, "query", false, List.of(), 1_000);
+    }
+
+    /**
+     * The sequence performed for every reference: claim and memorize.
+     */
+    @Benchmark
+    @Threads(8)
+    public Object claimAndMemorize(Contended state) {
+        final var source = state.next();
+        if (!state.memory.tryClaim(source)) {
+            return null;
+        }
+        return state.memory.findOrCall(source, MemoryBenchmark::report);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean tryClaim(Contended state) {
+        return state.memory.tryClaim(state.next());
+    }
+
+    /**
+     * Many virtual threads (like the checks of a crawl) claiming and memorizing sources of a shared pool at once;
+     * one operation ends after all threads have finished.
+     */
+    @Benchmark
+    @OperationsPerInvocation(VIRTUAL_THREADS * CLAIMS_PER_THREAD)
+    public void claimAndMemorizeOnVirtualThreads(Contended state) {
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int thread = 0; thread < VIRTUAL_THREADS; thread++) {
+                executor.submit(() -> {
+                    for (int claim = 0; claim < CLAIMS_PER_THREAD; claim++) {
+                        final var source = state.next();
+                        if (state.memory.tryClaim(source)) {
+                            state.memory.findOrCall(source, MemoryBenchmark::report);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object findOrCall(Contended state) {
+        return state.memory.findOrCall(state.next(), MemoryBenchmark::report);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String statistics(Filled state) {
+        return state.memory.statistics();
+    }
+
+}
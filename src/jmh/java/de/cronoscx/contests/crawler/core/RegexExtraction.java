@@ -0,0 +1,39 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * The former, regular expression based extraction of {@link Scout} (kept as baseline for benchmarks).
+ */
+final class RegexExtraction {
+    private static final Pattern BASE_HREF_PATTERN = Pattern.compile(
+            "<base\s+href=\"(?<href>[^\"?#\s]+)/?\"",
+            Pattern.CASE_INSENSITIVE
+    );
+    private static final Pattern HYPERLINK_PATTERN = Pattern.compile(
+            "<a\s+[^>]*href=\"(?<href>[^\"?#\s]+)/?\"",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    record Result(boolean found, Optional<String> baseHref, List<String> hrefs) {
+    }
+
+    private RegexExtraction() {
+    }
+
+    static Result extract(String body, String query) {
+        if (body.contains(query)) {
+            return new Result(true, Optional.empty(), List.of());
+        }
+        final var baseHref = BASE_HREF_PATTERN.matcher(body).results()
+                .findFirst()
+                .map(match -> match.group("href"));
+        final var hrefs = HYPERLINK_PATTERN.matcher(body).results()
+                .map(match -> match.group("href"))
+                .toList();
+        return new Result(false, baseHref, hrefs);
+    }
+
+}
@@ -0,0 +1,63 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the resolution of extracted {@code href}s by {@link Scout#parse(String, URI, Optional)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoutBenchmark {
+    private static final URI SOURCE = URI.create("http://my-site.com/a/b/page.html");
+    private static final Optional<URI> BASE_HREF = Optional.of(URI.create("http://my-site.com/x"));
+    private Scout scout;
+
+    @Setup
+    public void setup() {
+        scout = new Scout(new Memory());
+    }
+
+    @TearDown
+    public void tearDown() {
+        scout.close();
+    }
+
+    @Benchmark
+    public URI parseRelative() {
+        return scout.parse("impressum", SOURCE, Optional.empty());
+    }
+
+    @Benchmark
+    public URI parseAbsolutePath() {
+        return scout.parse("/impressum", SOURCE, Optional.empty());
+    }
+
+    @Benchmark
+    public URI parseFullUri() {
+        return scout.parse("https://www.whatever.com/a/b.html", SOURCE, Optional.empty());
+    }
+
+    @Benchmark
+    public URI parseWithBaseHref() {
+        return scout.parse("impressum", SOURCE, BASE_HREF);
+    }
+
+}
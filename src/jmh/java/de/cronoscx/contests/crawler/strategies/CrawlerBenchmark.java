@@ -0,0 +1,95 @@
+package de.cronoscx.contests.crawler.strategies;
+
+import de.cronoscx.contests.crawler.core.Assessor;
+import de.cronoscx.contests.crawler.core.Crawler;
+import de.cronoscx.contests.crawler.core.HostScheduler;
+import de.cronoscx.contests.crawler.core.Memory;
+import de.cronoscx.contests.crawler.core.Settings;
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end crawls against a local {@link SyntheticSite}; every invocation starts with an empty {@link Memory}.
+ * Combine with {@code -prof gc} to compare allocation rates of strategies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CrawlerBenchmark {
+    public enum Strategy {RECURSIVE, BETTER}
+
+    @Param({"RECURSIVE", "BETTER"})
+    private Strategy strategy;
+    @Param({"8"})
+    private int fanOut;
+    @Param({"3"})
+    private int depth;
+    @Param({"0", "4"})
+    private int crossLinks;
+    @Param({"FULL", "COMPACT"})
+    private Memory.Mode memory;
+    @Param({"8"})
+    private int maxInFlightPerHost;
+    // adapt the limit per host up to maxInFlightPerHost (e.g. -p adaptive=false,true)
+    @Param({"false"})
+    private boolean adaptive;
+    private SyntheticSite site;
+    private Crawler crawler;
+
+    @Setup(Level.Trial)
+    public void startSite() throws IOException {
+        site = new SyntheticSite(SyntheticSite.Layout.tree(fanOut, depth).withCrossLinks(crossLinks));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopSite() {
+        site.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void createCrawler() {
+        final var assessor = new Assessor(SyntheticSite.HOST_PATTERN);
+        final var settings = Settings.DEFAULT
+                .withHostLimits(new HostScheduler.Limits(maxInFlightPerHost, Duration.ZERO, adaptive));
+        crawler = switch (strategy) {
+            case RECURSIVE -> new RecursiveCrawler(new Memory(memory), assessor, settings);
+            case BETTER -> new BetterCrawler(new Memory(memory), assessor, settings);
+        };
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeCrawler() throws Exception {
+        crawler.close();
+    }
+
+    @Benchmark
+    public Optional<URI> dig() {
+        final var result = crawler.dig(site.root(), SyntheticSite.QUERY);
+        if (!result.equals(Optional.of(site.target()))) {
+            throw new IllegalStateException("unexpected result: %s".formatted(result));
+        }
+        return result;
+    }
+
+}
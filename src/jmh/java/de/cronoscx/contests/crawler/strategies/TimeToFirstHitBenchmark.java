@@ -0,0 +1,95 @@
+package de.cronoscx.contests.crawler.strategies;
+
+import de.cronoscx.contests.crawler.core.Assessor;
+import de.cronoscx.contests.crawler.core.Memory;
+import de.cronoscx.contests.crawler.core.RelevanceScoring;
+import de.cronoscx.contests.crawler.core.Settings;
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to the first hit of best-first digging compared to breadth-first digging on a {@link SyntheticSite} whose
+ * links towards the (deepest) target hint at the query; {@code decoys} is the share of other links carrying the same
+ * hint. The number of pages fetched until the hit is reported as secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TimeToFirstHitBenchmark {
+    public enum Scoring {BREADTH_FIRST, RELEVANCE}
+
+    @Param({"BREADTH_FIRST", "RELEVANCE"})
+    private Scoring scoring;
+    @Param({"0", "0.25"})
+    private double decoys;
+    @Param({"6"})
+    private int fanOut;
+    @Param({"4"})
+    private int depth;
+    @Param({"8"})
+    private int concurrency;
+    private SyntheticSite site;
+    private BetterCrawler crawler;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Pages {
+        public long pages;
+    }
+
+    @Setup(Level.Trial)
+    public void startSite() throws IOException {
+        site = new SyntheticSite(SyntheticSite.Layout.tree(fanOut, depth).withCrossLinks(2).withHints(decoys));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopSite() {
+        site.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void createCrawler() {
+        final var assessor = new Assessor(SyntheticSite.HOST_PATTERN).withScoring(switch (scoring) {
+            case BREADTH_FIRST -> Assessor.Scoring.BREADTH_FIRST;
+            case RELEVANCE -> new RelevanceScoring();
+        });
+        crawler = new BetterCrawler(new Memory(), assessor, Settings.DEFAULT.withConcurrency(concurrency));
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeCrawler() {
+        crawler.close();
+    }
+
+    @Benchmark
+    public Optional<URI> dig(Pages pages) {
+        final var result = crawler.dig(site.root(), SyntheticSite.QUERY);
+        if (!result.equals(Optional.of(site.target()))) {
+            throw new IllegalStateException("unexpected result: %s".formatted(result));
+        }
+        pages.pages += crawler.memory().size();
+        return result;
+    }
+
+}
@@ -3,12 +3,18 @@ package de.cronoscx.contests.crawler;
 
 import de.cronoscx.contests.crawler.core.Assessor;
 import de.cronoscx.contests.crawler.core.Crawler;
-import de.cronoscx.contests.crawler.strategies.RecursiveCrawler;
+import de.cronoscx.contests.crawler.core.Journal;
+import de.cronoscx.contests.crawler.core.Memory;
+import de.cronoscx.contests.crawler.core.ResponseCache;
+import de.cronoscx.contests.crawler.core.Settings;
+import de.cronoscx.contests.crawler.strategies.BetterCrawler;
 import org.springframework.util.StopWatch;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
 import java.text.NumberFormat;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Locale;
 import java.util.Optional;
@@ -19,7 +25,10 @@ public class Starter {
     public static final String START_URI = "http://www.cronoscx.de";
     private static final Logger LOG = Logger.getLogger("Root");
     private static final NumberFormat NUMBER_FORMAT = NumberFormat.getIntegerInstance(Locale.GERMAN);
-    private static final Assessor ASSESSOR = new Assessor();
+    private static final Duration REPORT_PERIOD = Duration.ofSeconds(5);
+    private static final String JOURNAL = "journal.log";
+    private static final String CACHE = "cache";
+    private static final long CACHE_SIZE = 256L * 1024 * 1024;
 
     private static Properties loadGitProperties() {
         final var result = new Properties();
@@ -35,7 +44,9 @@ public class Starter {
     /**
      * Where all begins...
      * <p>
-     * First command line argument provided will be the query string to search for.
+     * First command line argument provided will be the query string to search for. The optional second argument is
+     * a directory to persist the crawl state in: a crawl started again with the same directory resumes where the
+     * previous one stopped.
      */
     public static void main(String... args) throws Exception {
         final StopWatch watch = new StopWatch("Crawler");
@@ -61,13 +72,41 @@ public class Starter {
                 .orElse("Door-to-Door");
         LOG.info("\uD83D\uDD0E \"%s\"".formatted(query));
 
+        // 💾
+        final var stateDirectory = Arrays.stream(args)
+                .skip(1)
+                .findFirst()
+                .map(Path::of);
+        final var journal = stateDirectory.isPresent()
+                ? new Journal(stateDirectory.get().resolve(JOURNAL))
+                : null;
+        final var responseCache = stateDirectory.isPresent()
+                ? new ResponseCache(stateDirectory.get().resolve(CACHE), CACHE_SIZE)
+                : null;
+
         // 🚀
         LOG.warning("\uD83D\uDE80 at %s".formatted(START_URI));
         watch.start();
-        try (final Crawler crawler = new RecursiveCrawler()) {
+        try (final var memory = new Memory(Memory.Mode.FULL, journal, responseCache);
+             final Crawler crawler = new BetterCrawler(memory, new Assessor(),
+                     Settings.DEFAULT.withSpillDirectory(stateDirectory.orElse(null)))) {
             // 🛫
             final var uri = new URI(START_URI);
-            final Optional<URI> result = crawler.dig(uri, query);
+            final Optional<URI> result;
+            final var reporter = crawler.metrics().report(REPORT_PERIOD, snapshot -> LOG.info(
+                    "⏱️ %s pages (%s/s), %s in flight (limit %s), %s scheduled".formatted(
+                            NUMBER_FORMAT.format(snapshot.pages()),
+                            NUMBER_FORMAT.format(snapshot.pagesPerSecond()),
+                            NUMBER_FORMAT.format(snapshot.inFlight()),
+                            NUMBER_FORMAT.format(crawler.scheduler().concurrency()),
+                            NUMBER_FORMAT.format(snapshot.frontier())
+                    )));
+            try {
+                result = crawler.dig(uri, query);
+            } finally {
+                // no progress lines within the summary
+                reporter.close();
+            }
 
             // 🛬
             watch.stop();
@@ -79,7 +118,7 @@ public class Starter {
             // ⁉️
             final var assessment = result
                     .map(found -> {
-                        final var success = ASSESSOR.ok(found, query);
+                        final var success = crawler.verify(found, query);
                         if (success) {
                             return "✅ found URI \"%s\" is correct.".formatted(found);
                         } else {
@@ -90,7 +129,13 @@ public class Starter {
             LOG.warning(assessment);
 
             // 🔬
-            LOG.warning("\uD83D\uDD2C Statistics: \n%s".formatted(crawler.memory().statistics()));
+            LOG.warning("\uD83D\uDD2C Statistics: \n%s\n%s\n%s\n%s\n%s".formatted(
+                    crawler.memory().statistics(),
+                    crawler.canonicalizer().statistics(),
+                    crawler.metrics().statistics(),
+                    crawler.scheduler().statistics(),
+                    crawler.transport().statistics()
+            ));
         }
 
     }
@@ -0,0 +1,340 @@
+package de.cronoscx.contests.crawler.cluster;
+
+import de.cronoscx.contests.crawler.core.Assessor;
+import de.cronoscx.contests.crawler.core.Crawler;
+import de.cronoscx.contests.crawler.core.Frontier;
+import de.cronoscx.contests.crawler.core.Memory;
+import de.cronoscx.contests.crawler.core.Metrics;
+import de.cronoscx.contests.crawler.core.Scout;
+import de.cronoscx.contests.crawler.core.Settings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Best-first crawler running on one node of a cluster (one JVM per node, see {@link ClusterStarter}): every node owns
+ * the sources assigned to it by a {@link HashRing} and checks them like {@link
+ * de.cronoscx.contests.crawler.strategies.BetterCrawler} does. References owned by other nodes are collected and sent
+ * to their owner in batches; every node claims and memorizes the sources of its partition only.
+ * <p>
+ * A node finding a query broadcasts the match, so all nodes stop as soon as every query was found. Otherwise the
+ * coordinator (node 0) detects the end of the crawl by probing all nodes repeatedly: the crawl is over once two
+ * consecutive rounds find every node idle with unchanged message counters and all sent batches processed (the
+ * four-counter method). Every node leaving tells the others the crawl is over; a node going away otherwise makes all
+ * other nodes fail, so the cluster never waits for it forever.
+ * <p>
+ * All nodes must dig from the same source for the same queries; a cluster digs only once.
+ */
+public class ClusterCrawler extends Crawler {
+    private static final int BATCH_SIZE = 256;
+    // flush interval of partial batches, poll timeout and probe interval
+    private static final Duration TICK = Duration.ofMillis(10);
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Scout scout = new Scout(memory, scheduler, transport, metrics, canonicalizer);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Topology topology;
+    private final HashRing ring;
+    // completed checks and received messages, processed by the digging thread only
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+    private final Mesh mesh;
+    private final AtomicBoolean dug = new AtomicBoolean();
+
+    private record Visit(Frontier.Entry entry, Scout.Report report) {
+    }
+
+    /**
+     * Starts listening for the other nodes; connections are established by {@link #dig}.
+     */
+    public ClusterCrawler(Memory memory, Assessor assessor, Settings settings, Topology topology) throws IOException {
+        super(memory, assessor, settings);
+        this.topology = topology;
+        this.ring = new HashRing(topology.nodes().size());
+        this.mesh = new Mesh(topology, events::add);
+    }
+
+    public Topology topology() {
+        return topology;
+    }
+
+    /**
+     * Returns the index of the node owning the given source.
+     */
+    public int owner(URI source) {
+        return ring.owner(topology.partitioning().key(source));
+    }
+
+    @Override
+    public Map<String, URI> dig(URI source, Set<String> queries) {
+        if (!dug.compareAndSet(false, true)) {
+            throw new IllegalStateException("a cluster digs only once");
+        }
+        final var dig = new Dig(queries);
+        try {
+            mesh.connect(CONNECT_TIMEOUT);
+            LOG.info("🔗 node %d of %d connected".formatted(topology.self(), topology.nodes().size()));
+            return dig.run(source);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return dig.result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            dig.close();
+            // the others notice a node failing once its connections are closed
+            mesh.close();
+        }
+    }
+
+    /**
+     * State of a single traversal; owned by the digging thread.
+     */
+    private final class Dig {
+        private final Set<String> queries;
+        private final Map<String, URI> result;
+        private final Frontier frontier = settings.frontier();
+        private final Map<URI, Future<?>> inFlight = new HashMap<>();
+        // references to be sent per node
+        private final List<List<Message.Reference>> outboxes = new ArrayList<>();
+        // references already sent to (or collected for) other nodes
+        private final Set<URI> forwarded = new HashSet<>();
+        private long sent = 0;
+        private long received = 0;
+        private long flushed = System.nanoTime();
+        private boolean stopped = false;
+        // coordinator only
+        private int round = 0;
+        private long probed = System.nanoTime();
+        private Message.Status[] statuses;
+        private Message.Status[] previous;
+
+        private Dig(Set<String> queries) {
+            this.queries = queries;
+            // resumed crawl: the previous run already found matches
+            this.result = matches(queries);
+            topology.nodes().forEach(node -> outboxes.add(new ArrayList<>()));
+        }
+
+        private Map<String, URI> run(URI source) throws InterruptedException {
+            final var start = canonicalizer.canonicalize(source);
+            if (owner(start) == topology.self() && claim(start)) {
+                frontier.offer(start, 0);
+            }
+            // resumed crawl: sources the previous run of this node did not check anymore
+            for (final var pending : memory.drainPending()) {
+                if (assessor.relevant(pending)) {
+                    final var link = new Assessor.Link(pending, "", 1, null, 0);
+                    frontier.offer(pending, 1, assessor.score(link, queries));
+                }
+            }
+
+            while (!stopped && !result.keySet().containsAll(queries)) {
+                // fill up free slots in best-first order
+                while (inFlight.size() < settings.concurrency() && !frontier.isEmpty()) {
+                    final var entry = frontier.poll().orElseThrow();
+                    final var unresolved = unresolved(queries, result);
+                    inFlight.put(entry.source(), executor.submit(() -> check(entry, unresolved)));
+                }
+                mesh.verify();
+                flush();
+                if (topology.coordinator()) {
+                    probe();
+                }
+
+                // wait for the next check to complete or message to arrive
+                final var event = events.poll(TICK.toMillis(), TimeUnit.MILLISECONDS);
+                if (event instanceof Visit visit) {
+                    visit(visit);
+                } else if (event instanceof Message message) {
+                    receive(message);
+                }
+                metrics.frontier(frontier.size());
+            }
+            // tell the others all matches (a Stop must not overtake them) and that the crawl is over before going away:
+            // messages to this node are dropped from now on
+            result.forEach((query, match) -> mesh.broadcast(new Message.Found(query, match)));
+            mesh.broadcast(new Message.Stop());
+            return result;
+        }
+
+        /**
+         * Checks the given entry and posts the visit, even if the check failed: an entry staying in flight would keep
+         * this node from ever getting idle.
+         */
+        private void check(Frontier.Entry entry, Set<String> unresolved) {
+            Scout.Report report;
+            try {
+                report = scout.check(entry.source(), unresolved);
+            } catch (RuntimeException e) {
+                LOG.warning("💥 failed to check %s: %s".formatted(entry.source(), e));
+                report = Scout.Report.failed(entry.source(), unresolved, Metrics.Cause.OTHER);
+            }
+            events.add(new Visit(entry, report));
+        }
+
+        private void visit(Visit visit) {
+            inFlight.remove(visit.entry().source());
+            LOG.fine(() -> "~~> %s".formatted(visit.entry().source()));
+
+            // query matches found: tell all other nodes
+            for (final var query : visit.report().matches()) {
+                if (result.putIfAbsent(query, visit.entry().source()) == null) {
+                    mesh.broadcast(new Message.Found(query, visit.entry().source()));
+                }
+            }
+            if (result.keySet().containsAll(queries)) {
+                return;
+            }
+
+            // source unavailable: check it again later
+            if (visit.report().failed()) {
+                requeue(frontier, visit.entry());
+                return;
+            }
+
+            // queries left: schedule own references, collect the others for their owners
+            final var unresolved = unresolved(queries, result);
+            for (final var reference : visit.report().references()) {
+                if (!assessor.relevant(reference)) {
+                    continue;
+                }
+                // only the owner claims a reference; the others just avoid sending it twice
+                final var owner = owner(reference);
+                final var own = owner == topology.self();
+                if (own ? claim(reference) : forwarded.add(reference)) {
+                    final var link = new Assessor.Link(reference,
+                            visit.report().anchors().getOrDefault(reference, ""),
+                            visit.entry().depth() + 1, visit.report(), visit.entry().score());
+                    final var score = assessor.score(link, unresolved);
+                    if (own) {
+                        frontier.offer(reference, link.depth(), score);
+                    } else {
+                        outboxes.get(owner).add(new Message.Reference(reference, link.depth(), score));
+                    }
+                }
+            }
+        }
+
+        private void receive(Message message) {
+            switch (message) {
+                case Message.References references -> {
+                    received++;
+                    for (final var reference : references.references()) {
+                        if (claim(reference.source())) {
+                            frontier.offer(reference.source(), reference.depth(), reference.score());
+                        }
+                    }
+                }
+                case Message.Found found -> result.putIfAbsent(found.query(), found.source());
+                case Message.Probe probe -> mesh.send(0, status(probe.round()));
+                case Message.Status status -> collect(status);
+                case Message.Stop ignored -> stopped = true;
+                case Message.Hello ignored -> {
+                }
+            }
+        }
+
+        /**
+         * Sends full batches right away and partial ones once per tick (or as soon as the node ran out of work).
+         */
+        private void flush() {
+            final var due = System.nanoTime() - flushed >= TICK.toNanos()
+                    || frontier.isEmpty() && inFlight.isEmpty();
+            for (int node = 0; node < outboxes.size(); node++) {
+                final var outbox = outboxes.get(node);
+                if (!outbox.isEmpty() && (due || outbox.size() >= BATCH_SIZE)) {
+                    mesh.send(node, new Message.References(List.copyOf(outbox)));
+                    outbox.clear();
+                    sent++;
+                }
+            }
+            if (due) {
+                flushed = System.nanoTime();
+            }
+        }
+
+        private Message.Status status(int round) {
+            final var idle = frontier.isEmpty() && inFlight.isEmpty()
+                    && outboxes.stream().allMatch(List::isEmpty);
+            return new Message.Status(topology.self(), round, idle, sent, received);
+        }
+
+        /**
+         * Starts the next round of probing all nodes (unless the current one is not complete yet).
+         */
+        private void probe() {
+            if (statuses != null || System.nanoTime() - probed < TICK.toNanos()) {
+                return;
+            }
+            probed = System.nanoTime();
+            round++;
+            statuses = new Message.Status[topology.nodes().size()];
+            mesh.broadcast(new Message.Probe(round));
+            collect(status(round));
+        }
+
+        private void collect(Message.Status status) {
+            if (statuses == null || status.round() != round) {
+                return;
+            }
+            statuses[status.node()] = status;
+            if (Arrays.stream(statuses).anyMatch(value -> value == null)) {
+                return;
+            }
+            if (previous != null && terminated(previous, statuses)) {
+                LOG.info("🛑 all nodes ran out of work");
+                stopped = true;
+            }
+            previous = statuses;
+            statuses = null;
+        }
+
+        private void close() {
+            inFlight.values().forEach(future -> future.cancel(true));
+            frontier.close();
+        }
+    }
+
+    /**
+     * Four-counter method: all nodes were idle in both rounds, no node sent or processed a batch in between and every
+     * batch sent was processed.
+     */
+    static boolean terminated(Message.Status[] first, Message.Status[] second) {
+        long sent = 0;
+        long received = 0;
+        for (int node = 0; node < first.length; node++) {
+            if (!first[node].idle() || !second[node].idle()
+                    || first[node].sent() != second[node].sent()
+                    || first[node].received() != second[node].received()) {
+                return false;
+            }
+            sent += second[node].sent();
+            received += second[node].received();
+        }
+        return sent == received;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        scout.close();
+        mesh.close();
+        transport.close();
+    }
+}
@@ -0,0 +1,64 @@
+package de.cronoscx.contests.crawler.cluster;
+
+import de.cronoscx.contests.crawler.Starter;
+import de.cronoscx.contests.crawler.core.Assessor;
+import de.cronoscx.contests.crawler.core.Memory;
+import de.cronoscx.contests.crawler.core.Settings;
+import org.springframework.util.StopWatch;
+
+import java.net.URI;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.logging.Logger;
+
+public class ClusterStarter {
+    private static final Logger LOG = Logger.getLogger("Root");
+    private static final NumberFormat NUMBER_FORMAT = NumberFormat.getIntegerInstance(Locale.GERMAN);
+
+    /**
+     * Starts a single node of a cluster crawl; every node runs in its own process with the same arguments except for
+     * the node index:
+     * <ol>
+     *     <li>index of this node</li>
+     *     <li>comma-separated {@code host:port} addresses of all nodes (e.g. "localhost:7000,localhost:7001")</li>
+     *     <li>{@link Partitioning} of sources</li>
+     *     <li>query string</li>
+     *     <li>start URI (optional; defaults to {@link Starter#START_URI})</li>
+     *     <li>host pattern of relevant sources (optional; see {@link Assessor})</li>
+     * </ol>
+     * The last line written to stdout is the URI found (or "-").
+     */
+    public static void main(String... args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("usage: <node> <host:port,...> <HOST|SOURCE> <query> [<start uri> [<host pattern>]]");
+            System.exit(2);
+        }
+        final var topology = Topology.of(Integer.parseInt(args[0]), args[1], Partitioning.valueOf(args[2]));
+        final var query = args[3];
+        final var source = new URI(args.length > 4 ? args[4] : Starter.START_URI);
+        final var assessor = args.length > 5 ? new Assessor(args[5]) : new Assessor();
+        final StopWatch watch = new StopWatch("Crawler");
+
+        // 🚀
+        LOG.warning("🚀 node %d at %s".formatted(topology.self(), source));
+        watch.start();
+        try (final var crawler = new ClusterCrawler(new Memory(), assessor, Settings.DEFAULT, topology)) {
+            final var result = crawler.dig(source, query);
+
+            // 🛬
+            watch.stop();
+            LOG.warning("🏁 after %s ms... %s sources crawled by node %d".formatted(
+                    NUMBER_FORMAT.format(watch.getTotalTimeMillis()),
+                    NUMBER_FORMAT.format(crawler.memory().size()),
+                    topology.self()
+            ));
+            LOG.warning("🔬 Statistics: \n%s\n%s\n%s".formatted(
+                    crawler.memory().statistics(),
+                    crawler.canonicalizer().statistics(),
+                    crawler.metrics().statistics()
+            ));
+            System.out.println(result.map(URI::toString).orElse("-"));
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package de.cronoscx.contests.crawler.cluster;
+
+import de.cronoscx.contests.crawler.core.Hashing;
+
+import java.util.TreeMap;
+
+/**
+ * Consistent hashing: every node is placed on a ring of 64-bit hashes many times (virtual nodes), a key belongs to
+ * the first node following its hash. Nodes own about equal shares of all keys, and adding a node only moves the keys
+ * it takes over (about {@code 1/n} of all keys), so crawl state partitioned by the ring stays mostly in place.
+ */
+public final class HashRing {
+    private static final int VIRTUAL_NODES = 128;
+
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+    private final int nodes;
+
+    public HashRing(int nodes) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("nodes must be positive: %d".formatted(nodes));
+        }
+        this.nodes = nodes;
+        for (int node = 0; node < nodes; node++) {
+            for (int replica = 0; replica < VIRTUAL_NODES; replica++) {
+                ring.putIfAbsent(Hashing.hash("node-%d#%d".formatted(node, replica)), node);
+            }
+        }
+    }
+
+    public int nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the index of the node owning the given key.
+     */
+    public int owner(String key) {
+        final var entry = ring.ceilingEntry(Hashing.hash(key));
+        return (entry == null ? ring.firstEntry() : entry).getValue();
+    }
+
+}
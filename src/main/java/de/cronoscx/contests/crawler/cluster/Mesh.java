@@ -0,0 +1,239 @@
+package de.cronoscx.contests.crawler.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Plain TCP connections between all nodes of a {@link Topology}: every node listens on its own address and opens one
+ * connection to every other node for sending. Received messages are handed to the inbox by one virtual thread per
+ * connection.
+ * <p>
+ * Sending is not thread-safe: all messages must be sent by a single thread. Failed nodes are not tolerated: a node may
+ * only go away after telling it is done ({@link Message.Stop}), messages to it are dropped then. Otherwise,
+ * {@link #verify()} fails once its connections are closed.
+ */
+final class Mesh implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger("Mesh");
+    private static final Duration CONNECT_RETRY = Duration.ofMillis(50);
+    // time for the last messages of a node to arrive once its connection closed
+    private static final Duration DEPARTURE_GRACE = Duration.ofSeconds(1);
+
+    private final Topology topology;
+    private final Consumer<Message> inbox;
+    private final ServerSocket server;
+    private final DataOutputStream[] peers;
+    // nodes which said they are done (Stop)
+    private final Set<Integer> done = ConcurrentHashMap.newKeySet();
+    // nodes which cannot be sent to anymore (written by the sending thread only)
+    private final boolean[] unreachable;
+    // counted down once the connection from a node is closed
+    private final CountDownLatch[] disconnected;
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    private final ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+    // first node that went away without saying it is done
+    private volatile IOException failure;
+    private volatile boolean closed;
+
+    /**
+     * Starts listening on the address of the local node.
+     */
+    Mesh(Topology topology, Consumer<Message> inbox) throws IOException {
+        this.topology = topology;
+        this.inbox = inbox;
+        this.peers = new DataOutputStream[topology.nodes().size()];
+        this.unreachable = new boolean[topology.nodes().size()];
+        this.disconnected = new CountDownLatch[topology.nodes().size()];
+        Arrays.setAll(disconnected, node -> new CountDownLatch(1));
+        this.server = new ServerSocket();
+        this.server.setReuseAddress(true);
+        this.server.bind(topology.nodes().get(topology.self()));
+        readers.submit(this::accept);
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                final var socket = server.accept();
+                sockets.add(socket);
+                readers.submit(() -> read(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    LOG.warning("💥 failed to accept connection: %s".formatted(e.getMessage()));
+                }
+            }
+        }
+    }
+
+    private void read(Socket socket) {
+        var node = -1;
+        try (final var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            if (!(Message.read(in) instanceof Message.Hello hello)) {
+                throw new IOException("connection from %s did not say hello".formatted(
+                        socket.getRemoteSocketAddress()));
+            }
+            node = hello.node();
+            LOG.fine("🔗 node %d connected".formatted(node));
+            while (!closed) {
+                final var message = Message.read(in);
+                if (message instanceof Message.Stop) {
+                    done.add(node);
+                }
+                inbox.accept(message);
+            }
+        } catch (EOFException | SocketException e) {
+            // peer or mesh closed
+        } catch (IOException e) {
+            if (!closed) {
+                LOG.warning("💥 failed to read from %s: %s".formatted(socket.getRemoteSocketAddress(),
+                        e.getMessage()));
+            }
+        } finally {
+            if (node >= 0 && node < disconnected.length) {
+                disconnected[node].countDown();
+                if (!done.contains(node)) {
+                    fail(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for the given node to close the connection to it (nodes never answer on it) and determines whether it said
+     * it is done before: its last messages may still be on their way, so wait for its own connection to close first.
+     */
+    private void watch(int node, Socket socket) {
+        try {
+            socket.getInputStream().read();
+        } catch (IOException e) {
+            // reset by peer or mesh closed
+        }
+        try {
+            disconnected[node].await(DEPARTURE_GRACE.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            // mesh closed
+            return;
+        }
+        if (!done.contains(node)) {
+            fail(node);
+        }
+    }
+
+    private void fail(int node) {
+        if (!closed && failure == null) {
+            LOG.warning("💥 node %d went away before it was done".formatted(node));
+            failure = new IOException("node %d went away before it was done".formatted(node));
+        }
+    }
+
+    /**
+     * Connects to all other nodes (which may still be starting up) within the given time.
+     */
+    void connect(Duration timeout) throws IOException, InterruptedException {
+        final var deadline = System.nanoTime() + timeout.toNanos();
+        for (int node = 0; node < peers.length; node++) {
+            while (node != topology.self() && peers[node] == null) {
+                final var socket = new Socket();
+                try {
+                    socket.connect(topology.nodes().get(node), (int) CONNECT_RETRY.toMillis());
+                    socket.setTcpNoDelay(true);
+                    sockets.add(socket);
+                    peers[node] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    write(node, new Message.Hello(topology.self()));
+                    final var peer = node;
+                    readers.submit(() -> watch(peer, socket));
+                } catch (IOException e) {
+                    socket.close();
+                    if (System.nanoTime() > deadline) {
+                        throw new IOException("node %d at %s is not reachable".formatted(node,
+                                topology.nodes().get(node)), e);
+                    }
+                    Thread.sleep(CONNECT_RETRY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the given message to the given node; messages to a node which went away are dropped (whether it failed is
+     * up to the watcher of its connection, see {@link #verify()}).
+     */
+    void send(int node, Message message) {
+        if (unreachable[node]) {
+            return;
+        }
+        try {
+            write(node, message);
+        } catch (IOException e) {
+            unreachable[node] = true;
+            LOG.fine(() -> "👋 node %d went away: %s".formatted(node, e.getMessage()));
+        }
+    }
+
+    /**
+     * Fails if a node went away before it was done (or this mesh was closed).
+     *
+     * @throws UncheckedIOException if a node failed
+     */
+    void verify() {
+        final var failure = this.failure;
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        if (closed) {
+            throw new UncheckedIOException(new IOException("mesh closed"));
+        }
+    }
+
+    private void write(int node, Message message) throws IOException {
+        Message.write(message, peers[node]);
+        peers[node].flush();
+    }
+
+    /**
+     * Sends the given message to all other nodes.
+     */
+    void broadcast(Message message) {
+        for (int node = 0; node < peers.length; node++) {
+            if (node != topology.self()) {
+                send(node, message);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException ignored) {
+        }
+        for (final var socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        readers.shutdownNow();
+    }
+
+}
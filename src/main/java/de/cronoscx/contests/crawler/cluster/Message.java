@@ -0,0 +1,124 @@
+package de.cronoscx.contests.crawler.cluster;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messages exchanged between the nodes of a cluster. Every message is {@code [byte type][fields]}, written with
+ * {@link DataOutputStream} (strings as modified UTF-8).
+ */
+sealed interface Message {
+    byte HELLO = 1;
+    byte REFERENCES = 2;
+    byte FOUND = 3;
+    byte PROBE = 4;
+    byte STATUS = 5;
+    byte STOP = 6;
+
+    /**
+     * First message on every connection: identifies the sending node.
+     */
+    record Hello(int node) implements Message {
+    }
+
+    /**
+     * Source to be scheduled by its owner (see {@link de.cronoscx.contests.crawler.core.Frontier})
+     */
+    record Reference(URI source, int depth, double score) {
+    }
+
+    /**
+     * Batch of sources discovered by the sender and owned by the receiver
+     */
+    record References(List<Reference> references) implements Message {
+    }
+
+    /**
+     * The sender found the given source containing the given query.
+     */
+    record Found(String query, URI source) implements Message {
+    }
+
+    /**
+     * Asks for the {@link Status} of the receiver (sent by the coordinator).
+     */
+    record Probe(int round) implements Message {
+    }
+
+    /**
+     * Answer to a {@link Probe}
+     *
+     * @param idle     did the node neither have scheduled nor running checks nor unsent references?
+     * @param sent     number of {@link References} sent so far
+     * @param received number of {@link References} processed so far
+     */
+    record Status(int node, int round, boolean idle, long sent, long received) implements Message {
+    }
+
+    /**
+     * The crawl is over: no node has work left (sent by the coordinator).
+     */
+    record Stop() implements Message {
+    }
+
+    static void write(Message message, DataOutputStream out) throws IOException {
+        switch (message) {
+            case Hello hello -> {
+                out.writeByte(HELLO);
+                out.writeInt(hello.node());
+            }
+            case References references -> {
+                out.writeByte(REFERENCES);
+                out.writeInt(references.references().size());
+                for (final var reference : references.references()) {
+                    out.writeUTF(reference.source().toString());
+                    out.writeInt(reference.depth());
+                    out.writeDouble(reference.score());
+                }
+            }
+            case Found found -> {
+                out.writeByte(FOUND);
+                out.writeUTF(found.query());
+                out.writeUTF(found.source().toString());
+            }
+            case Probe probe -> {
+                out.writeByte(PROBE);
+                out.writeInt(probe.round());
+            }
+            case Status status -> {
+                out.writeByte(STATUS);
+                out.writeInt(status.node());
+                out.writeInt(status.round());
+                out.writeBoolean(status.idle());
+                out.writeLong(status.sent());
+                out.writeLong(status.received());
+            }
+            case Stop ignored -> out.writeByte(STOP);
+        }
+    }
+
+    static Message read(DataInputStream in) throws IOException {
+        final var type = in.readByte();
+        return switch (type) {
+            case HELLO -> new Hello(in.readInt());
+            case REFERENCES -> {
+                final var count = in.readInt();
+                final List<Reference> references = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    references.add(new Reference(URI.create(in.readUTF()), in.readInt(), in.readDouble()));
+                }
+                yield new References(List.copyOf(references));
+            }
+            case FOUND -> new Found(in.readUTF(), URI.create(in.readUTF()));
+            case PROBE -> new Probe(in.readInt());
+            case STATUS -> new Status(in.readInt(), in.readInt(), in.readBoolean(), in.readLong(), in.readLong());
+            case STOP -> new Stop();
+            default -> throw new IOException("unknown message type %d".formatted(type));
+        };
+    }
+
+}
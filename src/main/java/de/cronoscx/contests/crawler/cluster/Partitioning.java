@@ -0,0 +1,31 @@
+package de.cronoscx.contests.crawler.cluster;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * Determines which part of a source decides about the node owning it (see {@link HashRing}).
+ */
+public enum Partitioning {
+    /**
+     * All sources of a host belong to the same node, so the politeness limits per host hold for the whole cluster.
+     */
+    HOST {
+        @Override
+        String key(URI source) {
+            return String.valueOf(source.getHost()).toLowerCase(Locale.ROOT);
+        }
+    },
+    /**
+     * Sources are spread individually, so even a single host is crawled by all nodes; every node applies the
+     * politeness limits on its own, i.e. a host may see up to {@code n} times the configured load.
+     */
+    SOURCE {
+        @Override
+        String key(URI source) {
+            return source.toString();
+        }
+    };
+
+    abstract String key(URI source);
+}
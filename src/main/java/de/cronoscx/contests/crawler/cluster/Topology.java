@@ -0,0 +1,48 @@
+package de.cronoscx.contests.crawler.cluster;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Members of a cluster crawl
+ *
+ * @param self         index of the local node within {@code nodes}
+ * @param nodes        addresses all nodes listen on (identical on every node)
+ * @param partitioning how sources are assigned to nodes
+ */
+public record Topology(int self, List<InetSocketAddress> nodes, Partitioning partitioning) {
+
+    public Topology {
+        nodes = List.copyOf(nodes);
+        if (self < 0 || self >= nodes.size()) {
+            throw new IllegalArgumentException("node %d is not one of %d nodes".formatted(self, nodes.size()));
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of {@code host:port} addresses (e.g. "10.0.0.1:7000,10.0.0.2:7000").
+     */
+    public static Topology of(int self, String addresses, Partitioning partitioning) {
+        final var nodes = Arrays.stream(addresses.split(","))
+                .map(String::trim)
+                .map(address -> {
+                    final var colon = address.lastIndexOf(':');
+                    if (colon < 0) {
+                        throw new IllegalArgumentException("address without port: %s".formatted(address));
+                    }
+                    return new InetSocketAddress(address.substring(0, colon),
+                            Integer.parseInt(address.substring(colon + 1)));
+                })
+                .toList();
+        return new Topology(self, nodes, partitioning);
+    }
+
+    /**
+     * Is the local node the one detecting the end of a crawl?
+     */
+    public boolean coordinator() {
+        return self == 0;
+    }
+
+}
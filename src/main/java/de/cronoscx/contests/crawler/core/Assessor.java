@@ -2,56 +2,118 @@ package de.cronoscx.contests.crawler.core;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
 public final class Assessor {
-    private static final List<Predicate<String>> hostRules = List.of(
-            Pattern.compile(".*(?:cronoscx).*", Pattern.CASE_INSENSITIVE).asMatchPredicate()
-    );
     private static final Logger LOG = Logger.getLogger("Assessor");
+    // resources which are (practically) never HTML, so requesting them is a waste of bandwidth
+    private static final Set<String> SKIPPED_EXTENSIONS = Set.of(
+            "pdf", "zip", "gz", "tgz", "rar", "7z", "exe", "dmg", "iso",
+            "jpg", "jpeg", "png", "gif", "webp", "svg", "ico", "bmp", "tif", "tiff",
+            "mp3", "mp4", "m4a", "avi", "mov", "mkv", "webm", "wav",
+            "doc", "docx", "xls", "xlsx", "ppt", "pptx",
+            "css", "js", "json", "xml", "woff", "woff2", "ttf", "eot"
+    );
+    private final List<Predicate<String>> hostRules;
+    private final Scoring scoring;
+
+    /**
+     * Estimates how promising it is to dig a reference; crawlers check references with higher scores first.
+     */
+    @FunctionalInterface
+    public interface Scoring {
+        /**
+         * Prefers references closer to the start only, i.e. digs breadth-first.
+         */
+        Scoring BREADTH_FIRST = (link, queries) -> -link.depth();
+
+        double score(Link link, Set<String> queries);
+    }
+
+    /**
+     * Reference found while digging
+     *
+     * @param text        text of the hyperlink (empty if unknown)
+     * @param depth       number of links between the start and the target
+     * @param parent      report of the page containing the hyperlink ({@code null} if unknown)
+     * @param parentScore score the page containing the hyperlink was scheduled with
+     */
+    public record Link(URI target, String text, int depth, Scout.Report parent, double parentScore) {
+    }
+
+    public Assessor() {
+        this(".*(?:cronoscx).*");
+    }
+
+    /**
+     * @param hostPatterns regular expressions (case-insensitive) of which at least one must match the host of a
+     *                     relevant source
+     */
+    public Assessor(String... hostPatterns) {
+        this(Arrays.stream(hostPatterns)
+                .map(pattern -> Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).asMatchPredicate())
+                .toList(), new RelevanceScoring());
+    }
+
+    private Assessor(List<Predicate<String>> hostRules, Scoring scoring) {
+        this.hostRules = hostRules;
+        this.scoring = scoring;
+    }
+
+    /**
+     * Returns a copy of this assessor which scores references with the given scoring (default:
+     * {@link RelevanceScoring}).
+     */
+    public Assessor withScoring(Scoring scoring) {
+        return new Assessor(hostRules, scoring);
+    }
 
     /**
-     * Should the given source be considered relevant for digging?
+     * Should the given source be considered relevant for digging? Sources with a file extension of a well-known
+     * non-HTML resource (e.g. {@code .pdf}, {@code .png}) are not.
      */
     public boolean relevant(URI source) {
         return hostRules.stream()
-                .anyMatch(rule -> rule.test(source.getHost()));
-    }
-
-    /**
-     * Is the given source a valid page for the given query string?
-     */
-    public boolean ok(URI result, String query) {
-        try (var client = HttpClient
-                .newBuilder()
-                .version(Crawler.HTTP_VERSION)
-                .connectTimeout(Duration.ofSeconds(Crawler.TIMEOUT_SECONDS))
-                .followRedirects(HttpClient.Redirect.ALWAYS)
-                .build()
-        ) {
-            final var request = HttpRequest.newBuilder(result)
-                    .version(Crawler.HTTP_VERSION)
-                    .timeout(Duration.ofSeconds(Crawler.TIMEOUT_SECONDS))
-                    .GET()
-                    .build();
-
-            // send request & wait for it (blocking)
-            try {
-                final HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-                return response.body().contains(query);
-            } catch (IOException e) {
-                LOG.warning("\uD83D\uDCA5 failed to verify answer \"%s\"".formatted(result));
-                return false;
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
+                .anyMatch(rule -> rule.test(source.getHost()))
+                && !SKIPPED_EXTENSIONS.contains(extension(source));
+    }
+
+    /**
+     * Estimates how promising it is to dig the given (relevant) reference for the given queries.
+     */
+    public double score(Link link, Set<String> queries) {
+        return scoring.score(link, queries);
+    }
+
+    /**
+     * Returns the (lower case) extension of the last path segment; empty if there is none.
+     */
+    static String extension(URI source) {
+        final var path = source.getPath();
+        if (path == null) {
+            return "";
+        }
+        final var dot = path.lastIndexOf('.');
+        return dot < path.lastIndexOf('/') + 1 ? "" : path.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Is the given source a valid page for the given query string? Uses the given (shared) transport.
+     */
+    public boolean ok(URI result, String query, Transport transport) {
+        try {
+            return transport.scan(result, Set.of(query), status -> {}).scan().found();
+        } catch (IOException e) {
+            LOG.warning("\uD83D\uDCA5 failed to verify answer \"%s\"".formatted(result));
+            return false;
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -0,0 +1,237 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.net.URI;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Maps the many spellings of a source (e.g. {@code http://HOST:80/a/./}, {@code http://host/b/../a/#top}) onto a
+ * single canonical one before it is claimed in {@link Memory}, so each page is fetched once:
+ * <ul>
+ *     <li>scheme and host in lower case, default ports removed, empty path replaced by {@code /}</li>
+ *     <li>dot segments removed, percent-encodings in upper case, session ids in path parameters removed</li>
+ *     <li>trailing slash kept or stripped according to the {@link TrailingSlash} policy</li>
+ *     <li>tracking and session query parameters removed, the others sorted by name</li>
+ *     <li>fragment removed</li>
+ * </ul>
+ * Schemes are not merged: {@code http} and {@code https} variants are joined by {@link #redirected(URI, URI)} only,
+ * i.e. if the server actually redirects from one to the other.
+ * <p>
+ * A fetch is counted as saved whenever a new spelling maps onto a source seen before (which a crawl keyed by raw URIs
+ * would have fetched once more). The spellings are kept as {@link Fingerprints}.
+ */
+public final class Canonicalizer {
+    private static final NumberFormat NUMBER_FORMAT = NumberFormat.getIntegerInstance(Locale.GERMAN);
+    /**
+     * Query parameters not affecting the content of a page (trailing {@code *} matches any suffix)
+     */
+    public static final Set<String> IGNORED_PARAMETERS = Set.of(
+            "utm_*", "fbclid", "gclid", "dclid", "msclkid", "yclid", "mc_cid", "mc_eid", "_ga", "_gl", "igshid",
+            "jsessionid", "phpsessid", "sessionid"
+    );
+
+    private final TrailingSlash trailingSlash;
+    private final Set<String> ignoredParameters;
+    private final Set<String> ignoredPrefixes;
+    private final Fingerprints spellings = new Fingerprints();
+    private final Fingerprints known = new Fingerprints();
+    private final LongAdder rewritten = new LongAdder();
+    private final LongAdder redirects = new LongAdder();
+    private final LongAdder saved = new LongAdder();
+
+    public enum TrailingSlash {
+        /**
+         * {@code /a/} and {@code /a} are different sources (relative references resolve differently)
+         */
+        KEEP,
+        /**
+         * {@code /a/} is the same source as {@code /a} (for sites serving both alike)
+         */
+        STRIP
+    }
+
+    public Canonicalizer() {
+        this(TrailingSlash.KEEP, IGNORED_PARAMETERS);
+    }
+
+    /**
+     * @param ignoredParameters (lower case) names of query parameters to remove; a trailing {@code *} matches any
+     *                          suffix
+     */
+    public Canonicalizer(TrailingSlash trailingSlash, Set<String> ignoredParameters) {
+        this.trailingSlash = trailingSlash;
+        this.ignoredParameters = Set.copyOf(ignoredParameters);
+        this.ignoredPrefixes = ignoredParameters.stream()
+                .filter(name -> name.endsWith("*"))
+                .map(name -> name.substring(0, name.length() - 1))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Returns the canonical spelling of the given (extracted) source and counts whether it saved a fetch.
+     */
+    public URI canonicalize(URI source) {
+        final var result = canonical(source);
+        if (!result.equals(source)) {
+            rewritten.increment();
+        }
+        // a crawl keyed by raw URIs fetches each distinct spelling once
+        final var spelling = spellings.add(source);
+        if (!known.add(result) && spelling) {
+            saved.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Records that fetching the given source was redirected to the given target; returns the canonical target, which
+     * should be claimed as well since its content is known now.
+     */
+    public URI redirected(URI source, URI target) {
+        final var result = canonical(target);
+        if (!result.equals(canonical(source))) {
+            redirects.increment();
+            known.add(result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the canonical spelling of the given source (without counting); sources which are not absolute
+     * hierarchical HTTP(S) URIs are returned as they are.
+     */
+    public URI canonical(URI source) {
+        final var scheme = source.getScheme() == null ? null : source.getScheme().toLowerCase(Locale.ROOT);
+        if (!("http".equals(scheme) || "https".equals(scheme)) || source.isOpaque() || source.getHost() == null) {
+            return source;
+        }
+        final var result = new StringBuilder(source.toString().length());
+        result.append(scheme).append("://");
+        if (source.getRawUserInfo() != null) {
+            result.append(source.getRawUserInfo()).append('@');
+        }
+        result.append(source.getHost().toLowerCase(Locale.ROOT));
+        final var port = source.getPort();
+        if (port >= 0 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            result.append(':').append(port);
+        }
+        result.append(path(source.getRawPath()));
+        final var query = query(source.getRawQuery());
+        if (!query.isEmpty()) {
+            result.append('?').append(query);
+        }
+        try {
+            return URI.create(result.toString());
+        } catch (IllegalArgumentException e) {
+            return source;
+        }
+    }
+
+    private String path(String rawPath) {
+        if (rawPath == null || rawPath.isEmpty()) {
+            return "/";
+        }
+        final var segments = rawPath.split("/", -1);
+        final var output = new ArrayList<String>(segments.length);
+        for (int i = 1; i < segments.length; i++) {
+            final var segment = withoutSessionId(segments[i]);
+            final var last = i == segments.length - 1;
+            if (segment.equals(".") || segment.equals("..")) {
+                if (segment.equals("..") && !output.isEmpty()) {
+                    output.removeLast();
+                }
+                if (last) {
+                    output.add("");
+                }
+            } else {
+                output.add(upperCaseEncodings(segment));
+            }
+        }
+        final var result = "/" + String.join("/", output);
+        return trailingSlash == TrailingSlash.STRIP && result.length() > 1 && result.endsWith("/")
+                ? result.substring(0, result.length() - 1)
+                : result;
+    }
+
+    /**
+     * Removes path parameters carrying a session id (e.g. {@code index.html;jsessionid=1234}).
+     */
+    private String withoutSessionId(String segment) {
+        final var semicolon = segment.indexOf(';');
+        if (semicolon < 0) {
+            return segment;
+        }
+        final var parameter = segment.substring(semicolon + 1);
+        final var equals = parameter.indexOf('=');
+        final var name = (equals < 0 ? parameter : parameter.substring(0, equals)).toLowerCase(Locale.ROOT);
+        return ignored(name) ? segment.substring(0, semicolon) : segment;
+    }
+
+    private String query(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+        final var parameters = new ArrayList<String>();
+        for (final var parameter : rawQuery.split("&")) {
+            final var equals = parameter.indexOf('=');
+            final var name = equals < 0 ? parameter : parameter.substring(0, equals);
+            if (!parameter.isEmpty() && !ignored(name.toLowerCase(Locale.ROOT))) {
+                parameters.add(upperCaseEncodings(parameter));
+            }
+        }
+        // stable: values of repeated parameters keep their order
+        parameters.sort(Comparator.comparing(parameter -> {
+            final var equals = parameter.indexOf('=');
+            return equals < 0 ? parameter : parameter.substring(0, equals);
+        }));
+        return String.join("&", parameters);
+    }
+
+    private boolean ignored(String name) {
+        if (ignoredParameters.contains(name)) {
+            return true;
+        }
+        for (final var prefix : ignoredPrefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String upperCaseEncodings(String value) {
+        final var percent = value.indexOf('%');
+        if (percent < 0) {
+            return value;
+        }
+        final var result = value.toCharArray();
+        for (int i = percent; i < result.length - 2; i++) {
+            if (result[i] == '%') {
+                result[i + 1] = Character.toUpperCase(result[i + 1]);
+                result[i + 2] = Character.toUpperCase(result[i + 2]);
+                i += 2;
+            }
+        }
+        return new String(result);
+    }
+
+    /**
+     * Returns a "pretty" string with statistical key facts
+     */
+    public String statistics() {
+        return """
+                # references rewritten: %s
+                # redirects aliased: %s
+                # fetches saved by canonicalization: %s""".formatted(
+                NUMBER_FORMAT.format(rewritten.sum()),
+                NUMBER_FORMAT.format(redirects.sum()),
+                NUMBER_FORMAT.format(saved.sum())
+        );
+    }
+
+}
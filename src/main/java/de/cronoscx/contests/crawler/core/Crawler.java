@@ -1,17 +1,34 @@
 package de.cronoscx.contests.crawler.core;
 
 import java.net.URI;
-import java.net.http.HttpClient;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public abstract class Crawler implements AutoCloseable {
-    public static final HttpClient.Version HTTP_VERSION = HttpClient.Version.HTTP_1_1;
-    public static final int TIMEOUT_SECONDS = 10;
-
     protected static final Logger LOG = Logger.getLogger("Crawler");
-    protected final Memory memory = new Memory();
-    protected final Assessor assessor = new Assessor();
+    protected final Memory memory;
+    protected final Assessor assessor;
+    protected final Settings settings;
+    protected final HostScheduler scheduler;
+    protected final Transport transport;
+    protected final Metrics metrics = new Metrics();
+    protected final Canonicalizer canonicalizer = new Canonicalizer();
+
+    protected Crawler() {
+        this(new Memory(), new Assessor(), Settings.DEFAULT);
+    }
+
+    protected Crawler(Memory memory, Assessor assessor, Settings settings) {
+        this.memory = memory;
+        this.assessor = assessor;
+        this.settings = settings;
+        this.scheduler = new HostScheduler(settings.hostLimits());
+        this.transport = new Transport(settings, memory.responseCache().orElse(null));
+    }
 
     /**
      * represents the history of actions that are memorized during digging
@@ -20,13 +37,105 @@ public abstract class Crawler implements AutoCloseable {
         return memory;
     }
 
+    /**
+     * represents the politeness layer all requests pass through (incl. queue wait and fetch time statistics)
+     */
+    public final HostScheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * represents the HTTP client shared by all parties of the crawl (incl. protocol and connection reuse statistics)
+     */
+    public final Transport transport() {
+        return transport;
+    }
+
+    /**
+     * represents the instrumentation of the crawl (latencies per phase, throughput, failures, ...)
+     */
+    public final Metrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * represents the mapping of extracted references onto canonical sources (incl. the number of fetches it saved)
+     */
+    public final Canonicalizer canonicalizer() {
+        return canonicalizer;
+    }
+
+    /**
+     * Claims the given source in {@link #memory()} and records whether it was a duplicate.
+     */
+    protected final boolean claim(URI source) {
+        final var claimed = memory.tryClaim(source);
+        metrics.claimed(claimed);
+        return claimed;
+    }
+
+    /**
+     * Gives the source of the given entry back to the given frontier after its check failed (it stays claimed) unless
+     * it used up the {@link FetchPolicy#requeues()} of the crawl; returns whether it was given back.
+     */
+    protected final boolean requeue(Frontier frontier, Frontier.Entry entry) {
+        if (entry.retries() >= settings.fetchPolicy().requeues()) {
+            LOG.warning("\uD83D\uDCA5 giving up on %s".formatted(entry.source()));
+            return false;
+        }
+        frontier.retry(entry);
+        return true;
+    }
+
+    /**
+     * Returns a (mutable, thread-safe) map of the given queries which were found by a previous run already.
+     */
+    protected final Map<String, URI> matches(Set<String> queries) {
+        final Map<String, URI> result = new ConcurrentHashMap<>();
+        queries.forEach(query -> memory.match(query).ifPresent(match -> result.put(query, match)));
+        return result;
+    }
+
+    /**
+     * Returns the given queries which were not found yet.
+     */
+    protected static Set<String> unresolved(Set<String> queries, Map<String, URI> matches) {
+        return queries.stream()
+                .filter(query -> !matches.containsKey(query))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Verifies the given result of {@link #dig(URI, String)}. A result found within this run is accepted by looking up
+     * the snippet kept around its match (the scan of the crawl is trusted, the page is not fetched again); any other
+     * result (e.g. of a previous run) is fetched again reusing the connections of the crawl.
+     */
+    public boolean verify(URI result, String query) {
+        final var snippet = memory.snippet(result, query);
+        snippet.ifPresent(text -> LOG.info("\uD83D\uDD0E \"%s\" at %s: %s".formatted(query, result, text)));
+        return snippet.isPresent() || assessor.ok(result, query, transport);
+    }
+
     /**
      * main functionality.
      *
-     * @param source represents the web page where search starts (e.g. "<a href="https://www.cronoscx.de/home">cronoscx.de</a>")
+     * @param source represents the web page where search starts
+     *               (e.g. "<a href="https://www.cronoscx.de/home">cronoscx.de</a>")
      * @param query  represents the search term (must be containted in document source, no HTML parsing supported!)
      * @return the URI of the first found page containing the query string
      */
-    public abstract Optional<URI> dig(URI source, String query);
+    public Optional<URI> dig(URI source, String query) {
+        return Optional.ofNullable(dig(source, Set.of(query)).get(query));
+    }
+
+    /**
+     * Searches many terms within a single traversal: every page is fetched and scanned once for all terms which are
+     * still unresolved. Digging stops as soon as every term was found or no source is left.
+     *
+     * @param source  represents the web page where search starts
+     * @param queries represents the search terms (see {@link #dig(URI, String)})
+     * @return the URI of the first found page per query string (queries not found are missing)
+     */
+    public abstract Map<String, URI> dig(URI source, Set<String> queries);
 
 }
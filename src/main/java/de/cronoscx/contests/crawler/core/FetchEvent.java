@@ -0,0 +1,60 @@
+package de.cronoscx.contests.crawler.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event covering a single fetch of a {@link Scout} (from queueing at the host until the references
+ * are resolved). Only committed while a recording with {@value #NAME} enabled is running, e.g.
+ * {@code -XX:StartFlightRecording:settings=profile}.
+ */
+@Name(FetchEvent.NAME)
+@Label("Fetch")
+@Category({"Crawler"})
+@Description("Single page fetched by a scout, split into phases")
+@StackTrace(false)
+final class FetchEvent extends Event {
+    static final String NAME = "de.cronoscx.crawler.Fetch";
+
+    @Label("Source")
+    String source;
+
+    @Label("Status")
+    int status;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Found")
+    boolean found;
+
+    @Label("References")
+    int references;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Queue Wait")
+    @Timespan
+    long queue;
+
+    @Label("Time to First Byte")
+    @Description("Includes connecting if no connection to the origin could be reused")
+    @Timespan
+    long ttfb;
+
+    @Label("Body")
+    @Timespan
+    long body;
+
+    @Label("Parse")
+    @Timespan
+    long parse;
+}
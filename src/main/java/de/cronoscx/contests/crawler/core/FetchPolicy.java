@@ -0,0 +1,82 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reaction to slow and failing fetches: timeouts per phase (connecting and waiting for the response headers are
+ * limited by {@link Settings#timeout()}), bounded retries with jittered exponential backoff and hedged requests, i.e.
+ * a duplicate request sent once a fetch takes longer than most fetches of the crawl did (the faster one wins).
+ *
+ * @param maxAttempts   attempts per check of a source (1 for no retries)
+ * @param requeues      number of times a source failing all attempts of a check is given back to the frontier, so it
+ *                      is checked again later (0 to give up right away)
+ * @param backoff       upper bound of the delay before the first retry; doubled per retry (full jitter)
+ * @param maxBackoff    upper bound of the delay before any retry
+ * @param bodyTimeout   time to receive the body once the response headers arrived
+ * @param hedgeQuantile share of fetches expected to complete before a duplicate request is sent (0 for no hedging)
+ */
+public record FetchPolicy(int maxAttempts,
+                          int requeues,
+                          Duration backoff,
+                          Duration maxBackoff,
+                          Duration bodyTimeout,
+                          double hedgeQuantile) {
+    public static final FetchPolicy DEFAULT = new FetchPolicy(3, 2, Duration.ofMillis(200), Duration.ofSeconds(5),
+            Duration.ofSeconds(30), 0.95);
+    /**
+     * Single attempt without hedging
+     */
+    public static final FetchPolicy NONE = new FetchPolicy(1, 0, Duration.ZERO, Duration.ZERO, Duration.ofSeconds(30),
+            0);
+
+    public FetchPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: %d".formatted(maxAttempts));
+        }
+        if (requeues < 0) {
+            throw new IllegalArgumentException("requeues must not be negative: %d".formatted(requeues));
+        }
+        if (backoff.isNegative() || maxBackoff.isNegative()) {
+            throw new IllegalArgumentException("backoff must not be negative: %s, %s".formatted(backoff, maxBackoff));
+        }
+        if (!bodyTimeout.isPositive()) {
+            throw new IllegalArgumentException("bodyTimeout must be positive: %s".formatted(bodyTimeout));
+        }
+        if (hedgeQuantile < 0 || hedgeQuantile >= 1) {
+            throw new IllegalArgumentException("hedgeQuantile must be within [0, 1): %s".formatted(hedgeQuantile));
+        }
+    }
+
+    public boolean hedging() {
+        return hedgeQuantile > 0;
+    }
+
+    /**
+     * Returns a random delay before the given retry (starting at 1).
+     */
+    public Duration backoff(int retry) {
+        final var shift = Math.min(retry - 1, 30);
+        // clamp before shifting: large backoffs would overflow
+        final var bound = backoff.toNanos() > maxBackoff.toNanos() >> shift
+                ? maxBackoff.toNanos()
+                : backoff.toNanos() << shift;
+        return bound <= 0 ? Duration.ZERO : Duration.ofNanos(ThreadLocalRandom.current().nextLong(bound + 1));
+    }
+
+    /**
+     * Is a fetch which failed with the given exception worth another attempt (timeouts, connection failures, ...)?
+     */
+    public static boolean retryable(Throwable throwable) {
+        return throwable instanceof IOException;
+    }
+
+    /**
+     * Is a response with the given status worth another attempt (the server was overloaded or a gateway failed)?
+     */
+    public static boolean retryable(int status) {
+        return status == 429 || status == 502 || status == 503 || status == 504;
+    }
+
+}
@@ -0,0 +1,90 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.net.URI;
+
+/**
+ * Compact, thread-safe set of 64-bit source fingerprints: roughly 8 to 16 bytes per entry instead of a full
+ * {@link URI} plus map node. Entries are kept in open-addressing {@code long[]} tables, one per stripe, each guarded by
+ * its own monitor (critical sections never block, so virtual threads are not affected).
+ * <p>
+ * Fingerprints may collide: with 64 bits, the probability of a single false "already known" within a crawl of one
+ * million sources is below 10<sup>-7</sup>.
+ */
+final class Fingerprints {
+    private static final int STRIPES = 64;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final long EMPTY = 0L;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    Fingerprints() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 64-bit {@link Hashing#hash hash} of the given source; never returns {@link #EMPTY}.
+     */
+    static long fingerprint(URI source) {
+        final var hash = Hashing.hash(source.toString());
+        return hash == EMPTY ? 1L : hash;
+    }
+
+    /**
+     * Adds the fingerprint of the given source; returns {@code true} if it was not present before.
+     */
+    boolean add(URI source) {
+        final var fingerprint = fingerprint(source);
+        return stripes[(int) (fingerprint >>> 58) & (STRIPES - 1)].add(fingerprint);
+    }
+
+    /**
+     * Represents the number of fingerprints stored
+     */
+    long size() {
+        long result = 0;
+        for (final var stripe : stripes) {
+            synchronized (stripe) {
+                result += stripe.size;
+            }
+        }
+        return result;
+    }
+
+    private static final class Stripe {
+        private long[] table = new long[INITIAL_CAPACITY];
+        private int size = 0;
+
+        synchronized boolean add(long fingerprint) {
+            if (insert(table, fingerprint)) {
+                // keep load factor below 0.5
+                if (++size * 2 > table.length) {
+                    final var grown = new long[table.length * 2];
+                    for (final var existing : table) {
+                        if (existing != EMPTY) {
+                            insert(grown, existing);
+                        }
+                    }
+                    table = grown;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private static boolean insert(long[] table, long fingerprint) {
+            final var mask = table.length - 1;
+            for (int slot = (int) fingerprint & mask; ; slot = (slot + 1) & mask) {
+                if (table[slot] == EMPTY) {
+                    table[slot] = fingerprint;
+                    return true;
+                }
+                if (table[slot] == fingerprint) {
+                    return false;
+                }
+            }
+        }
+    }
+
+}
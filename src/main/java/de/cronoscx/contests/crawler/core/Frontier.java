@@ -0,0 +1,310 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Holds the sources that are scheduled for digging. Entries are handed out best-first (higher score first, see
+ * {@link Assessor.Scoring}); scores are bucketed in steps of {@code 1/16} and entries of the same bucket keep their
+ * insertion order, so the traversal does not depend on thread scheduling. Sources offered without a score are scored
+ * by their depth, i.e. handed out in breadth-first order.
+ * <p>
+ * A frontier created with a spill directory keeps about {@code capacity} entries on the heap in total (plus one batch
+ * and the block read back last); beyond that, the entries of the worst buckets are written to a temporary file per
+ * bucket and read back in order once the entries in front of them were handed out. Spill files are deleted on
+ * {@link #close()}; they are not needed to resume a crawl (see {@link Memory#drainPending()}).
+ * <p>
+ * Not thread-safe: the frontier is meant to be owned by a single coordinating thread.
+ */
+public final class Frontier implements AutoCloseable {
+    private static final int BATCH_SIZE = 1024;
+    private static final int RESOLUTION = 16;
+
+    // FIFO queue per (negated, bucketed) score; sequence numbers grow monotonically, so FIFO equals insertion order
+    private final TreeMap<Integer, Bucket> buckets = new TreeMap<>();
+    private final Path spillDirectory;
+    private final int capacity;
+    private long sequence = 0;
+    private int size = 0;
+    private int heap = 0;
+    private long spilled = 0;
+
+    /**
+     * @param retries number of times the source was given back after a failed check (see {@link #retry(Entry)})
+     */
+    public record Entry(URI source, int depth, double score, long sequence, int retries) {
+    }
+
+    /**
+     * Creates a frontier keeping all entries on the heap.
+     */
+    public Frontier() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a frontier spilling entries beyond the given capacity (across all score buckets) to the given directory.
+     */
+    public Frontier(Path spillDirectory, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: %d".formatted(capacity));
+        }
+        this.spillDirectory = spillDirectory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Schedules the given source at the given depth (breadth-first).
+     */
+    public void offer(URI source, int depth) {
+        offer(source, depth, -depth);
+    }
+
+    /**
+     * Schedules the given source at the given depth with the given score.
+     */
+    public void offer(URI source, int depth, double score) {
+        offer(source, depth, score, 0);
+    }
+
+    /**
+     * Schedules the source of the given entry again after its check failed; it is handed out after the entries of the
+     * same score scheduled so far.
+     */
+    public void retry(Entry entry) {
+        offer(entry.source(), entry.depth(), entry.score(), entry.retries() + 1);
+    }
+
+    private void offer(URI source, int depth, double score, int retries) {
+        // casting saturates, so extreme scores end up in the first or last bucket
+        final var key = (int) Math.ceil(-score * RESOLUTION);
+        buckets.computeIfAbsent(key, Bucket::new).offer(new Entry(source, depth, score, sequence++, retries));
+        size++;
+        if (spillDirectory != null && heap > capacity + BATCH_SIZE) {
+            shrink();
+        }
+    }
+
+    /**
+     * Spills entries until the capacity is met again, starting with the worst bucket (its entries are needed last).
+     */
+    private void shrink() {
+        final var first = buckets.firstKey();
+        for (final var bucket : buckets.descendingMap().values()) {
+            if (heap <= capacity) {
+                return;
+            }
+            // the head of the first bucket is handed out next
+            bucket.spill(bucket.key != first);
+        }
+    }
+
+    /**
+     * Removes and returns the next source to be processed (if any).
+     */
+    public Optional<Entry> poll() {
+        while (!buckets.isEmpty()) {
+            final var bucket = buckets.firstEntry().getValue();
+            final var entry = bucket.poll();
+            if (entry != null) {
+                size--;
+                return Optional.of(entry);
+            }
+            buckets.pollFirstEntry();
+            bucket.close();
+        }
+        return Optional.empty();
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Represents the number of currently scheduled sources
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Represents the number of entries currently kept on the heap
+     */
+    int onHeap() {
+        return heap;
+    }
+
+    /**
+     * Represents the number of entries written to disk so far
+     */
+    public long spilled() {
+        return spilled;
+    }
+
+    /**
+     * Deletes all spill files.
+     */
+    @Override
+    public void close() {
+        buckets.values().forEach(Bucket::close);
+        buckets.clear();
+        size = 0;
+        heap = 0;
+    }
+
+    /**
+     * Entries of a single score bucket in the order: {@code head} (heap), spill file, {@code tail} (heap).
+     */
+    private final class Bucket {
+        private final int key;
+        private final ArrayDeque<Entry> head = new ArrayDeque<>();
+        private final ArrayDeque<Entry> tail = new ArrayDeque<>();
+        private FileChannel file;
+        private Path path;
+        private long readPosition = 0;
+        private long writePosition = 0;
+
+        private Bucket(int key) {
+            this.key = key;
+        }
+
+        private void offer(Entry entry) {
+            heap++;
+            if (writePosition == readPosition && tail.isEmpty() && heap <= capacity) {
+                head.add(entry);
+            } else {
+                tail.add(entry);
+            }
+        }
+
+        private Entry poll() {
+            if (head.isEmpty()) {
+                if (writePosition > readPosition) {
+                    load();
+                } else {
+                    final var moved = tail.size();
+                    head.addAll(tail);
+                    tail.clear();
+                    if (moved == 0) {
+                        return null;
+                    }
+                }
+            }
+            final var result = head.poll();
+            if (result != null) {
+                heap--;
+            }
+            return result;
+        }
+
+        /**
+         * Writes the tail (and the head, if allowed and nothing is spilled yet) to the spill file.
+         */
+        private void spill(boolean withHead) {
+            if (withHead && writePosition == readPosition) {
+                write(head);
+            }
+            write(tail);
+        }
+
+        /**
+         * Appends the given entries as one block: {@code [int length][int count]([long sequence][int depth]
+         * [double score][int retries][int length][bytes of source])*}
+         */
+        private void write(ArrayDeque<Entry> entries) {
+            if (entries.isEmpty()) {
+                return;
+            }
+            try {
+                if (file == null) {
+                    Files.createDirectories(spillDirectory);
+                    path = Files.createTempFile(spillDirectory, "frontier-%d-".formatted(key), ".spill");
+                    file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                            StandardOpenOption.DELETE_ON_CLOSE);
+                }
+                final var sources = new byte[entries.size()][];
+                var length = Integer.BYTES;
+                int i = 0;
+                for (final var entry : entries) {
+                    sources[i] = entry.source().toString().getBytes(StandardCharsets.UTF_8);
+                    length += Long.BYTES + 2 * Integer.BYTES + Double.BYTES + Integer.BYTES + sources[i++].length;
+                }
+                final var block = ByteBuffer.allocate(Integer.BYTES + length)
+                        .putInt(length)
+                        .putInt(entries.size());
+                i = 0;
+                for (final var entry : entries) {
+                    block.putLong(entry.sequence())
+                            .putInt(entry.depth())
+                            .putDouble(entry.score())
+                            .putInt(entry.retries())
+                            .putInt(sources[i].length)
+                            .put(sources[i++]);
+                }
+                block.flip();
+                while (block.hasRemaining()) {
+                    writePosition += file.write(block, writePosition);
+                }
+                spilled += entries.size();
+                heap -= entries.size();
+                entries.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to spill frontier to %s".formatted(spillDirectory), e);
+            }
+        }
+
+        private void load() {
+            try {
+                final var header = read(Integer.BYTES);
+                final var block = read(header.getInt());
+                final var count = block.getInt();
+                for (int i = 0; i < count; i++) {
+                    final var sequence = block.getLong();
+                    final var depth = block.getInt();
+                    final var score = block.getDouble();
+                    final var retries = block.getInt();
+                    final var source = new byte[block.getInt()];
+                    block.get(source);
+                    head.add(new Entry(URI.create(new String(source, StandardCharsets.UTF_8)), depth, score, sequence,
+                            retries));
+                }
+                heap += count;
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to read frontier from %s".formatted(path), e);
+            }
+        }
+
+        private ByteBuffer read(int length) throws IOException {
+            final var result = ByteBuffer.allocate(length);
+            while (result.hasRemaining()) {
+                final var read = file.read(result, readPosition);
+                if (read < 0) {
+                    throw new IOException("unexpected end of spill file");
+                }
+                readPosition += read;
+            }
+            return result.flip();
+        }
+
+        private void close() {
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                }
+                file = null;
+            }
+        }
+    }
+
+}
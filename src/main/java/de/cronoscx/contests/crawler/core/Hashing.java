@@ -0,0 +1,25 @@
+package de.cronoscx.contests.crawler.core;
+
+/**
+ * 64-bit hash of texts, shared by the {@link Fingerprints} of sources and the partitioning of a cluster.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the given text with a final avalanche step
+     */
+    public static long hash(String text) {
+        var hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+}
@@ -0,0 +1,88 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets: values below 16 are counted exactly, larger values fall into
+ * one of 8 sub-buckets per power of two (relative error below 12.5 %). Recording is a single atomic increment, so the
+ * histogram can be shared by all virtual threads of a crawl.
+ */
+final class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = LINEAR + (Long.SIZE - 1 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    void record(long value) {
+        final var clamped = Math.max(0, value);
+        counts.incrementAndGet(index(clamped));
+        count.increment();
+        sum.add(clamped);
+        max.accumulate(clamped);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        final var magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final var subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (magnitude - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Largest value falling into the bucket with the given index
+     */
+    static long upperBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        final var magnitude = (index - LINEAR) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        final var subBucket = (index - LINEAR) % SUB_BUCKETS;
+        final var width = 1L << (magnitude - SUB_BUCKET_BITS);
+        return (1L << magnitude) + (subBucket + 1) * width - 1;
+    }
+
+    /**
+     * Returns the (approximated) value below or equal to which the given share of all recorded values falls.
+     */
+    long percentile(double share) {
+        final var total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        final var rank = Math.max(1, (long) Math.ceil(share * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    Metrics.Latency summary() {
+        final var total = count.sum();
+        return new Metrics.Latency(
+                total,
+                total == 0 ? 0 : sum.sum() / total,
+                percentile(0.5),
+                percentile(0.9),
+                percentile(0.99),
+                max.get()
+        );
+    }
+
+}
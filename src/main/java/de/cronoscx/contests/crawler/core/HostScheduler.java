@@ -0,0 +1,300 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.io.IOException;
+import java.net.URI;
+import java.text.NumberFormat;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Politeness layer in front of all requests: limits the number of requests in flight per host and optionally the
+ * rate of request starts per host. Callers exceeding the limits are queued (blocked in FIFO order), which pushes back
+ * on the crawler instead of flooding a server until it throttles or times out.
+ * <p>
+ * With {@link Limits#adaptive()} the limit per host is found by AIMD: it starts low and grows by one per round of
+ * fully used slots while the latency stays close to the lowest one seen; it is halved on timeouts or overload
+ * responses (e.g. {@code 429}, {@code 503}) as well as other I/O failures (refused or reset connections) and reduced
+ * slightly while the latency rises; fetches aborted otherwise (e.g. cancelled) are no latency sample at all.
+ * Decreases happen at most once per (smoothed) round trip, so a burst of failures of requests sent at once counts as
+ * a single signal.
+ * <p>
+ * Keeps track of the time requests spent waiting in the queue vs. the time spent fetching.
+ */
+public final class HostScheduler {
+    private static final NumberFormat NUMBER_FORMAT = NumberFormat.getIntegerInstance(Locale.GERMAN);
+    private final Limits limits;
+    private final ConcurrentMap<String, Host> hosts = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder fetchNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+    /**
+     * @param maxInFlight maximum number of concurrent requests per host
+     * @param interval    minimum time between two request starts per host ({@link Duration#ZERO} for no rate limit)
+     * @param adaptive    adapt the number of concurrent requests per host (up to {@code maxInFlight}) to its latency
+     *                    and failures
+     */
+    public record Limits(int maxInFlight, Duration interval, boolean adaptive) {
+        public static final Limits DEFAULT = new Limits(32, Duration.ZERO, true);
+
+        public Limits {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight must be positive: %d".formatted(maxInFlight));
+            }
+            if (interval.isNegative()) {
+                throw new IllegalArgumentException("interval must not be negative: %s".formatted(interval));
+            }
+        }
+
+        /**
+         * Fixed limits
+         */
+        public Limits(int maxInFlight, Duration interval) {
+            this(maxInFlight, interval, false);
+        }
+    }
+
+    /**
+     * Result of a fetch as seen by the adaptive limit
+     */
+    private enum Outcome {
+        COMPLETED,
+        OVERLOADED,
+        // failed without telling anything about the host (e.g. cancelled)
+        ABORTED
+    }
+
+    /**
+     * Slots of a single host; waiting callers are served in order of arrival.
+     */
+    private static final class Host {
+        // initial limit of adaptive hosts
+        private static final int INITIAL_LIMIT = 4;
+        // latency (relative to the lowest one) above which the limit is reduced
+        private static final double TOLERANCE = 2;
+        private static final double BACKOFF = 0.5;
+        private static final double CONGESTION_BACKOFF = 0.9;
+        // number of samples after which the lowest latency is forgotten (the server may have become slower)
+        private static final int BASELINE_SAMPLES = 500;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition served = lock.newCondition();
+        private final AtomicLong nextStart = new AtomicLong(System.nanoTime());
+        private final int maxInFlight;
+        private final boolean adaptive;
+        private final Queue<Object> waiting = new ArrayDeque<>();
+        private int inFlight = 0;
+        private double limit;
+        private long minLatency = Long.MAX_VALUE;
+        private double latency = 0;
+        private int samples = 0;
+        private long decreased = 0;
+
+        private Host(Limits limits) {
+            this.maxInFlight = limits.maxInFlight();
+            this.adaptive = limits.adaptive();
+            this.limit = initial(limits);
+        }
+
+        private static int initial(Limits limits) {
+            return limits.adaptive() ? Math.min(INITIAL_LIMIT, limits.maxInFlight()) : limits.maxInFlight();
+        }
+
+        private void acquire() throws InterruptedException {
+            final var caller = new Object();
+            lock.lock();
+            try {
+                waiting.add(caller);
+                try {
+                    while (waiting.peek() != caller || inFlight >= (int) limit) {
+                        served.await();
+                    }
+                } catch (InterruptedException e) {
+                    waiting.remove(caller);
+                    served.signalAll();
+                    throw e;
+                }
+                waiting.remove();
+                inFlight++;
+                // the next caller may fit as well
+                served.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Releases a slot which was used for the given time.
+         */
+        private void release(long nanos, Outcome outcome) {
+            lock.lock();
+            try {
+                final var saturated = inFlight >= (int) limit;
+                inFlight--;
+                if (adaptive && outcome != Outcome.ABORTED) {
+                    adapt(nanos, outcome == Outcome.OVERLOADED, saturated);
+                }
+                served.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void adapt(long nanos, boolean overloaded, boolean saturated) {
+            final var now = System.nanoTime();
+            final var decrease = now - decreased > latency;
+            if (overloaded) {
+                if (decrease) {
+                    limit = Math.max(1, limit * BACKOFF);
+                    decreased = now;
+                }
+                return;
+            }
+            if (++samples % BASELINE_SAMPLES == 0) {
+                minLatency = (long) latency;
+            }
+            minLatency = Math.min(minLatency, nanos);
+            latency = samples == 1 ? nanos : latency * 0.9 + nanos * 0.1;
+            if (latency > minLatency * TOLERANCE) {
+                if (decrease) {
+                    limit = Math.max(1, limit * CONGESTION_BACKOFF);
+                    decreased = now;
+                }
+            } else if (saturated) {
+                limit = Math.min(maxInFlight, limit + 1 / limit);
+            }
+        }
+
+        private int limit() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int queued() {
+            lock.lock();
+            try {
+                return waiting.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public HostScheduler(Limits limits) {
+        this.limits = limits;
+    }
+
+    public Limits limits() {
+        return limits;
+    }
+
+    /**
+     * Runs the given fetch for the given source as soon as the limits of its host allow.
+     */
+    public <T> T run(URI source, Callable<T> fetch) throws Exception {
+        return run(source, fetch, result -> false);
+    }
+
+    /**
+     * Runs the given fetch for the given source as soon as the limits of its host allow; results matching the given
+     * predicate (as well as I/O failures like timeouts) tell an {@link Limits#adaptive() adaptive} limit that the host
+     * is overloaded.
+     */
+    public <T> T run(URI source, Callable<T> fetch, Predicate<? super T> overloaded) throws Exception {
+        final var host = hosts.computeIfAbsent(String.valueOf(source.getHost()).toLowerCase(Locale.ROOT),
+                name -> new Host(limits));
+        final var queued = System.nanoTime();
+        host.acquire();
+        var nanos = 0L;
+        var outcome = Outcome.ABORTED;
+        try {
+            if (!limits.interval().isZero()) {
+                final var interval = limits.interval().toNanos();
+                final var start = host.nextStart.getAndUpdate(next -> Math.max(next, System.nanoTime()) + interval);
+                final var delay = start - System.nanoTime();
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+            }
+            final var started = System.nanoTime();
+            final var waited = started - queued;
+            waitNanos.add(waited);
+            maxWaitNanos.accumulate(waited);
+            try {
+                final var result = fetch.call();
+                outcome = overloaded.test(result) ? Outcome.OVERLOADED : Outcome.COMPLETED;
+                return result;
+            } catch (IOException e) {
+                outcome = Outcome.OVERLOADED;
+                throw e;
+            } finally {
+                nanos = System.nanoTime() - started;
+                fetchNanos.add(nanos);
+                requests.increment();
+            }
+        } finally {
+            host.release(nanos, outcome);
+        }
+    }
+
+    /**
+     * Represents the number of requests currently waiting for the given host
+     */
+    public int queued(URI source) {
+        final var host = hosts.get(String.valueOf(source.getHost()).toLowerCase(Locale.ROOT));
+        return host == null ? 0 : host.queued();
+    }
+
+    /**
+     * Represents the current number of concurrent requests allowed for the given host
+     */
+    public int limit(URI source) {
+        final var host = hosts.get(String.valueOf(source.getHost()).toLowerCase(Locale.ROOT));
+        return host == null ? Host.initial(limits) : host.limit();
+    }
+
+    /**
+     * Represents the current number of concurrent requests allowed for all hosts together
+     */
+    public long concurrency() {
+        return hosts.values().stream().mapToLong(Host::limit).sum();
+    }
+
+    /**
+     * Returns a "pretty" string with statistical key facts
+     */
+    public String statistics() {
+        final var count = Math.max(1, requests.sum());
+        return """
+                # requests: %s (%s hosts)
+                # concurrency limit: %s (%s per host at most)
+                # avg. queue wait: %s µs (max. %s µs)
+                # avg. fetch: %s µs""".formatted(
+                NUMBER_FORMAT.format(requests.sum()),
+                NUMBER_FORMAT.format(hosts.size()),
+                NUMBER_FORMAT.format(concurrency()),
+                NUMBER_FORMAT.format(hosts.values().stream().mapToInt(Host::limit).max().orElse(0)),
+                NUMBER_FORMAT.format(TimeUnit.NANOSECONDS.toMicros(waitNanos.sum() / count)),
+                NUMBER_FORMAT.format(TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get())),
+                NUMBER_FORMAT.format(TimeUnit.NANOSECONDS.toMicros(fetchNanos.sum() / count))
+        );
+    }
+
+}
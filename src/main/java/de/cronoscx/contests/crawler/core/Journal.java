@@ -0,0 +1,241 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of {@link Scout.Report}s backed by a memory-mapped file, which allows {@link Memory} to resume a
+ * crawl after the JVM died. Appending is a plain memory copy; the operating system writes the pages back, so
+ * records survive a crash of the JVM (not necessarily of the machine unless {@link #close()} forced them to disk).
+ * <p>
+ * Every record is {@code [int length][payload]}; the length is written last, so a record torn by a crash reads as
+ * the (zero-filled) end of the log and is overwritten by the next append.
+ */
+public final class Journal implements AutoCloseable {
+    private static final int REGION_SIZE = 16 * 1024 * 1024;
+    private static final byte REPORT = 1;
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer region;
+    // absolute file position of the start of the current region
+    private long regionStart;
+    private long records;
+
+    /**
+     * Opens (or creates) the journal at the given path; appends continue after the last complete record.
+     */
+    public Journal(Path path) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final var end = scan(null);
+        map(end, 0);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Represents the number of complete records
+     */
+    public synchronized long records() {
+        return records;
+    }
+
+    /**
+     * Hands all complete records to the given consumer (in order of appending).
+     */
+    public synchronized void replay(Consumer<Scout.Report> consumer) {
+        try {
+            scan(consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to replay journal %s".formatted(path), e);
+        }
+    }
+
+    /**
+     * Appends the given report.
+     */
+    public synchronized void append(Scout.Report report) {
+        final var payload = encode(report);
+        final var length = Integer.BYTES + payload.remaining();
+        if (region.remaining() < length + Integer.BYTES) {
+            try {
+                map(regionStart + region.position(), length + Integer.BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to extend journal %s".formatted(path), e);
+            }
+        }
+        final var position = region.position();
+        region.position(position + Integer.BYTES);
+        region.put(payload);
+        // commit: make the record visible to replays
+        region.putInt(position, payload.limit());
+        records++;
+    }
+
+    /**
+     * Forces all appended records to disk and releases the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        region.force();
+        channel.close();
+    }
+
+    private void map(long start, int minimumSize) throws IOException {
+        regionStart = start;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.max(REGION_SIZE, minimumSize));
+    }
+
+    /**
+     * Reads all complete records (handing them to the given consumer if present) and returns the position after the
+     * last one.
+     */
+    private long scan(Consumer<Scout.Report> consumer) throws IOException {
+        final var size = channel.size();
+        final var header = ByteBuffer.allocate(Integer.BYTES);
+        long position = 0;
+        long count = 0;
+        while (position + Integer.BYTES <= size) {
+            header.clear();
+            channel.read(header, position);
+            final var length = header.flip().getInt();
+            if (length <= 0 || position + Integer.BYTES + length > size) {
+                break;
+            }
+            final var payload = ByteBuffer.allocate(length);
+            while (payload.hasRemaining()) {
+                channel.read(payload, position + Integer.BYTES + payload.position());
+            }
+            final Scout.Report report;
+            try {
+                report = decode(payload.flip());
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                break;
+            }
+            if (consumer != null) {
+                consumer.accept(report);
+            }
+            position += Integer.BYTES + length;
+            count++;
+        }
+        records = count;
+        return position;
+    }
+
+    private static ByteBuffer encode(Scout.Report report) {
+        final var source = bytes(report.source().toString());
+        final var queries = report.queries().stream().map(Journal::bytes).toList();
+        final var matches = report.matches().stream().map(Journal::bytes).toList();
+        final var references = report.references().stream().map(reference -> bytes(reference.toString())).toList();
+        // anchors as pairs of reference and text
+        final var anchors = report.anchors().entrySet().stream()
+                .flatMap(anchor -> Stream.of(bytes(anchor.getKey().toString()), bytes(anchor.getValue())))
+                .toList();
+        // evidence as pairs of query and text
+        final var evidence = report.evidence().entrySet().stream()
+                .flatMap(match -> Stream.of(bytes(match.getKey()), bytes(match.getValue())))
+                .toList();
+        final var length = 1 + 4 + source.length + length(queries) + length(matches) + 4 + length(references)
+                + length(anchors) + length(evidence);
+        final var result = ByteBuffer.allocate(length)
+                .put(REPORT)
+                .putInt(source.length).put(source);
+        put(result, queries);
+        put(result, matches);
+        result.putInt(report.responseSize());
+        put(result, references);
+        put(result, anchors);
+        put(result, evidence);
+        return result.flip();
+    }
+
+    private static Scout.Report decode(ByteBuffer payload) {
+        if (payload.get() != REPORT) {
+            throw new IllegalArgumentException("unknown record type");
+        }
+        final var source = URI.create(string(payload));
+        final var queries = Set.copyOf(strings(payload));
+        final var matches = Set.copyOf(strings(payload));
+        final var responseSize = payload.getInt();
+        final var references = strings(payload).stream().map(URI::create).toList();
+        final var anchors = strings(payload);
+        final Map<URI, String> texts = new HashMap<>();
+        for (int i = 0; i + 1 < anchors.size(); i += 2) {
+            texts.put(URI.create(anchors.get(i)), anchors.get(i + 1));
+        }
+        final var evidence = strings(payload);
+        final Map<String, String> snippets = new HashMap<>();
+        for (int i = 0; i + 1 < evidence.size(); i += 2) {
+            snippets.put(evidence.get(i), evidence.get(i + 1));
+        }
+        return new Scout.Report(source, queries, matches, references, Map.copyOf(texts), Map.copyOf(snippets),
+                responseSize, null);
+    }
+
+    /**
+     * Represents the encoded size of the given values: {@code [int count]([int length][bytes])*}
+     */
+    private static int length(List<byte[]> values) {
+        return values.stream().mapToInt(value -> 4 + value.length).sum() + 4;
+    }
+
+    private static void put(ByteBuffer buffer, List<byte[]> values) {
+        buffer.putInt(values.size());
+        values.forEach(value -> buffer.putInt(value.length).put(value));
+    }
+
+    private static List<String> strings(ByteBuffer buffer) {
+        final var count = size(buffer, Integer.BYTES);
+        final List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(string(buffer));
+        }
+        return result;
+    }
+
+    /**
+     * Reads a count (or length) of elements taking at least the given number of bytes each; values not fitting into
+     * the rest of the record are corrupt, so the record is taken as the torn end of the log.
+     */
+    private static int size(ByteBuffer buffer, int elementBytes) {
+        final var size = buffer.getInt();
+        if (size < 0 || size > buffer.remaining() / elementBytes) {
+            throw new IllegalArgumentException("corrupt size %d".formatted(size));
+        }
+        return size;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        final var bytes = new byte[size(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
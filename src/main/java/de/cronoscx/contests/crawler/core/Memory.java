@@ -1,79 +1,301 @@
 package de.cronoscx.contests.crawler.core;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 /**
  * Memorizes previously found {@link Scout.Report}s and provides basic information to analyze progress or history.
- * Provides additional synchronization for specific sources and must be used to prevent redundant processing.
+ * Sources must be claimed via {@link #tryClaim(URI)} before processing to prevent redundant work.
+ * <p>
+ * With a {@link Journal} all reports are persisted as well. Opening a memory on an existing journal restores the
+ * previous run: checked sources are claimed (and memorized in {@link Mode#FULL}) again, matches are available via
+ * {@link #match(String)} and referenced but unchecked sources via {@link #drainPending()}.
+ * <p>
+ * A {@link ResponseCache} keeps the responses themselves across runs, so even a fresh crawl only revalidates
+ * unchanged pages; its hit rates are part of {@link #statistics()}.
+ * <p>
+ * Statistics are counted whenever a report is memorized (in total and per host), so {@link #snapshot()} and
+ * {@link #statistics()} are cheap enough to be polled during a crawl.
  */
-public final class Memory {
+public final class Memory implements AutoCloseable {
     private static final NumberFormat NUMBER_FORMAT = NumberFormat.getIntegerInstance(Locale.GERMAN);
-    private final ConcurrentMap<URI, Scout.Report> history = new ConcurrentHashMap<>();
-    private final ConcurrentMap<URI, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final Mode mode;
+    // FULL mode only
+    private final ConcurrentMap<URI, Scout.Report> history;
+    private final Set<URI> claims;
+    // COMPACT mode only
+    private final Fingerprints fingerprints;
+    private final Counter total = new Counter();
+    private final ConcurrentMap<String, Counter> hosts = new ConcurrentHashMap<>();
+    // text around the matches per source (in both modes; few sources match)
+    private final ConcurrentMap<URI, Map<String, String>> evidence = new ConcurrentHashMap<>();
+    // persistence only
+    private final Journal journal;
+    private final Map<String, URI> matches = new ConcurrentHashMap<>();
+    private final Queue<URI> pending = new ConcurrentLinkedQueue<>();
+    private final ResponseCache responseCache;
+
+    /**
+     * Key facts of the memorized reports (of all sources or those of a single host)
+     *
+     * @param sources    number of reports
+     * @param references number of references of all reports
+     * @param characters number of characters parsed
+     */
+    public record Snapshot(long sources, long references, long characters) {
+    }
+
+    public enum Mode {
+        /**
+         * Keeps every {@link Scout.Report} (including its references) for the entire run.
+         */
+        FULL,
+        /**
+         * Keeps 64-bit fingerprints of claimed sources and the counters needed for {@link #statistics()} only; reports
+         * are handed out once and dropped afterwards. Heap usage grows by a few bytes per source, so very large crawls
+         * fit into a small heap.
+         */
+        COMPACT
+    }
+
+    public Memory() {
+        this(Mode.FULL);
+    }
+
+    public Memory(Mode mode) {
+        this(mode, null);
+    }
+
+    /**
+     * @param journal persists all reports and restores those of previous runs ({@code null} for none)
+     */
+    public Memory(Mode mode, Journal journal) {
+        this(mode, journal, null);
+    }
+
+    /**
+     * @param journal       persists all reports and restores those of previous runs ({@code null} for none)
+     * @param responseCache stores responses for conditional requests of later runs ({@code null} for none)
+     */
+    public Memory(Mode mode, Journal journal, ResponseCache responseCache) {
+        this.mode = mode;
+        this.responseCache = responseCache;
+        this.history = mode == Mode.FULL ? new ConcurrentHashMap<>() : null;
+        this.claims = mode == Mode.FULL ? ConcurrentHashMap.newKeySet() : null;
+        this.fingerprints = mode == Mode.COMPACT ? new Fingerprints() : null;
+        this.journal = journal;
+        if (journal != null) {
+            restore(journal);
+        }
+    }
+
+    /**
+     * Replays the given journal twice: first claiming all checked sources, then claiming their references which were
+     * not checked (e.g. scheduled or in flight when the previous run died).
+     */
+    private void restore(Journal journal) {
+        journal.replay(report -> {
+            if (!tryClaim(report.source())) {
+                return;
+            }
+            if (mode == Mode.FULL) {
+                history.put(report.source(), report);
+            }
+            memorize(report);
+            report.matches().forEach(query -> matches.putIfAbsent(query, report.source()));
+        });
+        journal.replay(report -> report.references().stream()
+                .filter(this::tryClaim)
+                .forEach(pending::add));
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public Optional<ResponseCache> responseCache() {
+        return Optional.ofNullable(responseCache);
+    }
 
     /**
      * Represents the number of known {@link Scout.Report}s
      */
-    public Long size() {
-        return (long) history.size();
+    public long size() {
+        return total.sources.sum();
+    }
+
+    /**
+     * Returns the current key facts of all memorized reports.
+     */
+    public Snapshot snapshot() {
+        return total.snapshot();
+    }
+
+    /**
+     * Returns the current key facts of the memorized reports per host.
+     */
+    public Map<String, Snapshot> snapshotPerHost() {
+        final Map<String, Snapshot> result = new TreeMap<>();
+        hosts.forEach((host, counter) -> result.put(host, counter.snapshot()));
+        return result;
+    }
+
+    /**
+     * Returns the source found for the given query by a previous run (restored from the journal).
+     */
+    public Optional<URI> match(String query) {
+        return Optional.ofNullable(matches.get(query));
     }
 
     /**
-     * Returns {@code true} if given source is currently locked or a corresponding history entry is present;
-     * {@code false} otherwise
+     * Returns the snippet around the given query as seen when the given source was checked (empty if the source was
+     * not found to contain the query within this run).
      */
-    public boolean unknown(URI source) {
-        return !locks.containsKey(source) && !history.containsKey(source);
+    public Optional<String> snippet(URI source, String query) {
+        return Optional.ofNullable(evidence.get(source)).map(matches -> matches.get(query));
     }
 
     /**
-     * Acquire lock for given source to prevent redundant execution
+     * Removes and returns the sources referenced by restored reports which were never checked. They are claimed
+     * already, so crawlers resuming a run must schedule them explicitly.
      */
-    public void lock(URI source) {
-        locks.computeIfAbsent(source,
-                (uri) -> new ReentrantLock()).lock();
+    public List<URI> drainPending() {
+        final List<URI> result = new ArrayList<>();
+        for (var source = pending.poll(); source != null; source = pending.poll()) {
+            result.add(source);
+        }
+        return result;
     }
 
     /**
-     * Release lock for given source
+     * Claims the given source for processing: returns {@code true} for exactly one caller per source and
+     * {@code false} for every further attempt. Must be called before a source is checked to prevent redundant
+     * processing.
      */
-    public synchronized void release(URI source) {
-        locks.get(source).unlock();
-        locks.remove(source);
+    public boolean tryClaim(URI source) {
+        return mode == Mode.FULL ? claims.add(source) : fingerprints.add(source);
     }
 
     /**
      * Provides memorization... returns previously generated report for known sources or calls the given handler
-     * otherwise (which then stores the result within memory).
+     * otherwise (which then stores the result within memory). In {@link Mode#COMPACT} reports are not stored, so
+     * the handler is called every time. {@link Scout.Report#failed() Failed} reports are neither stored nor persisted
+     * in both modes: their source stays claimed without a report, so the crawler owning the claim may check it again
+     * (and a resumed crawl finds it among the {@link #drainPending() pending} sources).
+     * <p>
+     * The handler is called outside of any map lock: blocking I/O within {@link ConcurrentMap#computeIfAbsent} would
+     * pin virtual threads to their carrier. Redundant calls are prevented by {@link #tryClaim(URI)}.
      */
     public Scout.Report findOrCall(URI source, Function<URI, Scout.Report> handler) {
-        return history.computeIfAbsent(source, handler);
+        if (mode == Mode.COMPACT) {
+            final var report = handler.apply(source);
+            if (report.failed()) {
+                return report;
+            }
+            memorize(report);
+            persist(report);
+            return report;
+        }
+        final var known = history.get(source);
+        if (known != null) {
+            return known;
+        }
+        final var report = handler.apply(source);
+        if (report.failed()) {
+            return report;
+        }
+        final var previous = history.putIfAbsent(source, report);
+        if (previous == null) {
+            memorize(report);
+            persist(report);
+        }
+        return previous == null ? report : previous;
+    }
+
+    /**
+     * Counts the given (new) report and keeps the evidence of its matches.
+     */
+    private void memorize(Scout.Report report) {
+        if (!report.evidence().isEmpty()) {
+            evidence.put(report.source(), report.evidence());
+        }
+        total.add(report);
+        final var host = report.source().getHost();
+        hosts.computeIfAbsent(host == null ? "" : host, key -> new Counter()).add(report);
+    }
+
+    private void persist(Scout.Report report) {
+        if (journal != null) {
+            journal.append(report);
+        }
     }
 
     /**
      * Returns a "pretty" string with statistical key facts
      */
     public String statistics() {
+        final var cache = responseCache().map(value -> "\n" + value.statistics()).orElse("");
+        final var snapshot = snapshot();
+        return statistics(snapshot.sources(), snapshot.references(), snapshot.characters()) + cache;
+    }
+
+    /**
+     * Closes the journal (if any).
+     */
+    @Override
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to close journal %s".formatted(journal.path()), e);
+        }
+    }
+
+    /**
+     * Striped counters of memorized reports
+     */
+    private static final class Counter {
+        private final LongAdder sources = new LongAdder();
+        private final LongAdder references = new LongAdder();
+        private final LongAdder characters = new LongAdder();
+
+        private void add(Scout.Report report) {
+            sources.increment();
+            references.add(report.references().size());
+            characters.add(report.responseSize());
+        }
+
+        private Snapshot snapshot() {
+            return new Snapshot(sources.sum(), references.sum(), characters.sum());
+        }
+    }
+
+    private static String statistics(long sources, long references, long characters) {
         return """
                 # sources: %s
                 # references: %s
                 # characters parsed: %s""".formatted(
-                NUMBER_FORMAT.format(history.size()),
-                NUMBER_FORMAT.format(history.values().stream()
-                        .map(Scout.Report::references)
-                        .map(List::size)
-                        .reduce(0, Integer::sum)),
-                NUMBER_FORMAT.format(history.values().stream()
-                        .map(Scout.Report::responseSize)
-                        .map(Long::valueOf)
-                        .reduce(0L, Long::sum))
+                NUMBER_FORMAT.format(sources),
+                NUMBER_FORMAT.format(references),
+                NUMBER_FORMAT.format(characters)
         );
     }
 
@@ -0,0 +1,381 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.text.NumberFormat;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Low-overhead instrumentation of a crawl: per-phase latency histograms, throughput, requests in flight, duplicate
+ * ratio of claims, failures by cause and frontier size. All recording is lock-free (adders, atomic bucket counters),
+ * so it can stay enabled in production crawls; every fetch is additionally emitted as {@link FetchEvent} while a
+ * flight recording is running.
+ * <p>
+ * {@link java.net.http.HttpClient} does not report connection setup separately, so connecting is part of
+ * {@link Phase#TTFB} (it only occurs if no connection to the origin could be reused).
+ */
+public final class Metrics {
+    private static final NumberFormat NUMBER_FORMAT = NumberFormat.getIntegerInstance(Locale.GERMAN);
+    // number of fetches below which latency percentiles are not trusted
+    private static final int MIN_SAMPLES = 32;
+    private final long created = System.nanoTime();
+    private final Histogram[] latencies = new Histogram[Phase.values().length];
+    // sending the request until the body was received (TTFB and BODY together)
+    private final Histogram fetches = new Histogram();
+    private final LongAdder[] failures = new LongAdder[Cause.values().length];
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder claims = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final AtomicLong frontier = new AtomicLong();
+    private final LongAccumulator maxFrontier = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Phases of a single fetch
+     */
+    public enum Phase {
+        /**
+         * waiting for a slot of the host (politeness)
+         */
+        QUEUE,
+        /**
+         * sending the request until the response headers arrived (incl. connecting)
+         */
+        TTFB,
+        /**
+         * receiving and scanning the body
+         */
+        BODY,
+        /**
+         * resolving the references found in the body
+         */
+        PARSE
+    }
+
+    /**
+     * Reasons why a fetch did not yield a page
+     */
+    public enum Cause {
+        STATUS, CONTENT_TYPE, TOO_LARGE, CONNECT_TIMEOUT, TIMEOUT, CONNECT, IO, CANCELLED, OTHER;
+
+        static Cause of(Throwable throwable) {
+            return switch (throwable) {
+                case HttpConnectTimeoutException ignored -> CONNECT_TIMEOUT;
+                case HttpTimeoutException ignored -> TIMEOUT;
+                case ConnectException ignored -> CONNECT;
+                case InterruptedException ignored -> CANCELLED;
+                case CancellationException ignored -> CANCELLED;
+                case IOException ignored -> IO;
+                default -> OTHER;
+            };
+        }
+    }
+
+    /**
+     * Summary of the latencies of a phase in nanoseconds
+     */
+    public record Latency(long count, long mean, long p50, long p90, long p99, long max) {
+    }
+
+    /**
+     * Point-in-time view of all metrics
+     */
+    public record Snapshot(Duration elapsed,
+                           long pages,
+                           long bytes,
+                           long inFlight,
+                           long claims,
+                           long duplicates,
+                           long frontier,
+                           long maxFrontier,
+                           long retries,
+                           long hedges,
+                           long hedgesWon,
+                           Map<Cause, Long> failures,
+                           Map<Phase, Latency> latencies) {
+
+        public double pagesPerSecond() {
+            return perSecond(pages);
+        }
+
+        public double bytesPerSecond() {
+            return perSecond(bytes);
+        }
+
+        /**
+         * Represents the share of claims that were rejected because the source was already known
+         */
+        public double duplicateRatio() {
+            return claims == 0 ? 0 : (double) duplicates / claims;
+        }
+
+        private double perSecond(long value) {
+            final var nanos = Math.max(1, elapsed.toNanos());
+            return value * 1e9 / nanos;
+        }
+    }
+
+    public Metrics() {
+        Arrays.setAll(latencies, i -> new Histogram());
+        Arrays.setAll(failures, i -> new LongAdder());
+    }
+
+    /**
+     * Starts recording a fetch of the given source.
+     */
+    Fetch start(URI source) {
+        return new Fetch(source);
+    }
+
+    /**
+     * Records the result of {@link Memory#tryClaim(URI)}; unsuccessful claims are duplicates.
+     */
+    public void claimed(boolean claimed) {
+        claims.increment();
+        if (!claimed) {
+            duplicates.increment();
+        }
+    }
+
+    /**
+     * Records the current number of sources scheduled by a crawler.
+     */
+    public void frontier(int size) {
+        frontier.set(size);
+        maxFrontier.accumulate(size);
+    }
+
+    /**
+     * Returns the time (from sending the request) within which the given share of all fetches received their body;
+     * empty until enough fetches completed.
+     */
+    Optional<Duration> latency(double share) {
+        if (fetches.count() < MIN_SAMPLES) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(fetches.percentile(share)));
+    }
+
+    /**
+     * Records a duplicate request sent for a slow fetch; {@code won} if it completed first.
+     */
+    void hedged(boolean won) {
+        hedges.increment();
+        if (won) {
+            hedgesWon.increment();
+        }
+    }
+
+    public Snapshot snapshot() {
+        final var failures = new EnumMap<Cause, Long>(Cause.class);
+        for (final var cause : Cause.values()) {
+            failures.put(cause, this.failures[cause.ordinal()].sum());
+        }
+        final var latencies = new EnumMap<Phase, Latency>(Phase.class);
+        for (final var phase : Phase.values()) {
+            latencies.put(phase, this.latencies[phase.ordinal()].summary());
+        }
+        return new Snapshot(
+                Duration.ofNanos(System.nanoTime() - created),
+                pages.sum(),
+                bytes.sum(),
+                inFlight.sum(),
+                claims.sum(),
+                duplicates.sum(),
+                frontier.get(),
+                maxFrontier.get(),
+                retries.sum(),
+                hedges.sum(),
+                hedgesWon.sum(),
+                Collections.unmodifiableMap(failures),
+                Collections.unmodifiableMap(latencies)
+        );
+    }
+
+    /**
+     * Hands a snapshot to the given consumer once per period (on a virtual thread) until the returned handle is
+     * closed.
+     */
+    public AutoCloseable report(Duration period, Consumer<Snapshot> consumer) {
+        final var reporter = Thread.ofVirtual().name("metrics-reporter").start(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.sleep(period);
+                    consumer.accept(snapshot());
+                }
+            } catch (InterruptedException ignored) {
+            }
+        });
+        return reporter::interrupt;
+    }
+
+    /**
+     * Returns a "pretty" string with statistical key facts
+     */
+    public String statistics() {
+        final var snapshot = snapshot();
+        final var result = new StringBuilder("""
+                # pages: %s (%s/s, %s KiB/s)
+                # in flight: %s
+                # duplicate claims: %s of %s (%s %%)
+                # frontier: %s (max. %s)
+                # retries: %s, hedged requests: %s (%s completed first)
+                # failures: %s""".formatted(
+                NUMBER_FORMAT.format(snapshot.pages()),
+                NUMBER_FORMAT.format(snapshot.pagesPerSecond()),
+                NUMBER_FORMAT.format(snapshot.bytesPerSecond() / 1024),
+                NUMBER_FORMAT.format(snapshot.inFlight()),
+                NUMBER_FORMAT.format(snapshot.duplicates()),
+                NUMBER_FORMAT.format(snapshot.claims()),
+                NUMBER_FORMAT.format(snapshot.duplicateRatio() * 100),
+                NUMBER_FORMAT.format(snapshot.frontier()),
+                NUMBER_FORMAT.format(snapshot.maxFrontier()),
+                NUMBER_FORMAT.format(snapshot.retries()),
+                NUMBER_FORMAT.format(snapshot.hedges()),
+                NUMBER_FORMAT.format(snapshot.hedgesWon()),
+                snapshot.failures().entrySet().stream()
+                        .filter(failure -> failure.getValue() > 0)
+                        .map(failure -> "%s=%s".formatted(failure.getKey(), NUMBER_FORMAT.format(failure.getValue())))
+                        .collect(Collectors.joining(", ", "[", "]"))
+        ));
+        snapshot.latencies().forEach((phase, latency) -> result.append("""
+
+                # %s: avg. %s µs, p50 %s µs, p90 %s µs, p99 %s µs (max. %s µs)""".formatted(
+                phase.name().toLowerCase(Locale.ROOT),
+                micros(latency.mean()),
+                micros(latency.p50()),
+                micros(latency.p90()),
+                micros(latency.p99()),
+                micros(latency.max())
+        )));
+        return result.toString();
+    }
+
+    private static String micros(long nanos) {
+        return NUMBER_FORMAT.format(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Timeline of a single fetch. Transitions must be reported in order by the fetching thread; the outcome
+     * ({@link #completed(boolean, int)}, {@link #rejected(Cause)} or {@link #failed(Throwable)}) is recorded once.
+     * A {@link #retried() retry} queues the fetch again; its phases are recorded per attempt.
+     */
+    final class Fetch {
+        private final FetchEvent event = new FetchEvent();
+        private final URI source;
+        private long queued = System.nanoTime();
+        private long started;
+        private long responded;
+        private long received;
+        private int status;
+        private long size;
+        private boolean done;
+
+        private Fetch(URI source) {
+            this.source = source;
+            event.begin();
+        }
+
+        /**
+         * The host granted a slot, the request is sent now.
+         */
+        void started() {
+            if (started == 0) {
+                inFlight.increment();
+            }
+            started = System.nanoTime();
+            latencies[Phase.QUEUE.ordinal()].record(started - queued);
+        }
+
+        /**
+         * The previous attempt failed, another one is queued now.
+         */
+        void retried() {
+            retries.increment();
+            queued = System.nanoTime();
+        }
+
+        /**
+         * The response headers arrived.
+         */
+        void responded(int status) {
+            this.status = status;
+            responded = System.nanoTime();
+            latencies[Phase.TTFB.ordinal()].record(responded - started);
+        }
+
+        /**
+         * The body was received (completely or until the query was found).
+         */
+        void received(long bytes) {
+            size = bytes;
+            received = System.nanoTime();
+            latencies[Phase.BODY.ordinal()].record(received - responded);
+            fetches.record(received - started);
+        }
+
+        void completed(boolean found, int references) {
+            final var parsed = System.nanoTime();
+            latencies[Phase.PARSE.ordinal()].record(parsed - received);
+            finish("OK", found, references, parsed);
+        }
+
+        void rejected(Cause cause) {
+            failures[cause.ordinal()].increment();
+            finish(cause.name(), false, 0, 0);
+        }
+
+        void failed(Throwable throwable) {
+            rejected(Cause.of(throwable));
+        }
+
+        private void finish(String outcome, boolean found, int references, long parsed) {
+            if (done) {
+                return;
+            }
+            done = true;
+            if (started != 0) {
+                inFlight.decrement();
+            }
+            if (received != 0) {
+                pages.increment();
+                bytes.add(size);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.source = source.toString();
+                event.status = status;
+                event.outcome = outcome;
+                event.found = found;
+                event.references = references;
+                event.bytes = size;
+                event.queue = started == 0 ? 0 : started - queued;
+                event.ttfb = responded == 0 ? 0 : responded - started;
+                event.body = received == 0 ? 0 : received - responded;
+                event.parse = parsed == 0 ? 0 : parsed - received;
+                event.commit();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,642 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Scans a page body chunk by chunk within a single linear pass: looks for any number of query strings at once (also
+ * across chunk boundaries, see {@link QueryMatcher}) and tokenizes the markup on the fly to collect the raw
+ * {@code href}s of the first base element and all hyperlinks along with their (leading) text. No regular expressions
+ * are involved; the only allocations are the extracted {@code href}s and texts.
+ * <p>
+ * Not thread-safe: chunks must be fed sequentially.
+ */
+final class PageScanner {
+    // upper bound for the attribute section of a single tag; longer tags are skipped
+    private static final int MAX_TAG_LENGTH = 8 * 1024;
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final char[] HREF = "href".toCharArray();
+    // upper bound for the text of a single hyperlink; longer texts are cut
+    private static final int MAX_TEXT_LENGTH = 64;
+    // characters kept around a match as evidence
+    private static final int EVIDENCE_CONTEXT = 32;
+
+    private enum State {TEXT, TAG_NAME, ATTRIBUTES, SKIP}
+
+    private enum Tag {ANCHOR, BASE}
+
+    private final QueryMatcher matcher;
+    private final List<String> hrefs = new ArrayList<>();
+    private final List<String> texts = new ArrayList<>();
+    // text of the current hyperlink (whitespace collapsed)
+    private final char[] text = new char[MAX_TEXT_LENGTH];
+    private int textLength = -1;
+    // attribute section of the current anchor or base tag
+    private char[] attributes = new char[256];
+    private final char[] name = new char[4];
+    private State state = State.TEXT;
+    private Tag tag;
+    private int nameLength = 0;
+    private int attributesLength = 0;
+    private char quote = 0;
+    private String baseHref;
+    // state of the query automaton and queries (bits) found so far
+    private int matched = 0;
+    private final long[] matches;
+    // text around the first occurrence per query (allocated on the first match)
+    private String[] evidence;
+    private int remaining;
+    private int characters = 0;
+    private long bytes = 0;
+    private boolean truncated;
+    private boolean found;
+
+    PageScanner(String query) {
+        this(Set.of(query));
+    }
+
+    PageScanner(Set<String> queries) {
+        if (queries.isEmpty()) {
+            throw new IllegalArgumentException("no query given");
+        }
+        this.matcher = QueryMatcher.of(queries);
+        this.matches = new long[matcher.words];
+        this.remaining = matcher.queries.size();
+        // empty queries are contained in every page
+        match(0, new char[0], 0, 0, -1);
+    }
+
+    /**
+     * Consumes the given chunk; returns {@code true} as soon as all query strings were found.
+     */
+    boolean feed(CharSequence chunk) {
+        if (chunk instanceof CharBuffer buffer && buffer.hasArray()) {
+            return feed(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        final var buffer = new char[Math.min(chunk.length(), BUFFER_SIZE)];
+        for (int start = 0; start < chunk.length() && !found; start += buffer.length) {
+            final var end = Math.min(start + buffer.length, chunk.length());
+            if (chunk instanceof String string) {
+                string.getChars(start, end, buffer, 0);
+            } else {
+                for (int i = start; i < end; i++) {
+                    buffer[i - start] = chunk.charAt(i);
+                }
+            }
+            feed(buffer, 0, end - start);
+        }
+        return found;
+    }
+
+    /**
+     * Consumes {@code length} characters of the given array starting at {@code offset}; returns {@code true} as soon
+     * as all query strings were found.
+     */
+    boolean feed(char[] chunk, int offset, int length) {
+        if (found) {
+            return true;
+        }
+        final var end = offset + length;
+        final var delta = matcher.delta;
+        final var accepting = matcher.accepting;
+        final var width = matcher.width;
+        var matched = this.matched;
+        for (int i = offset; i < end; i++) {
+            final var c = chunk[i];
+
+            // query matching (characters not contained in any query reset the automaton)
+            final var cls = matcher.classOf(c);
+            if (matched != 0 || cls != 0) {
+                matched = delta[matched * width + cls];
+                if (accepting[matched] && match(matched, chunk, offset, end, i)) {
+                    this.matched = matched;
+                    this.characters += i - offset + 1;
+                    return true;
+                }
+            }
+
+            // markup tokenizing
+            if (state != State.TEXT || c == '<' || textLength >= 0) {
+                tokenize(c);
+            }
+        }
+        this.matched = matched;
+        this.characters += length;
+        return false;
+    }
+
+    /**
+     * Records the queries ending in the given state of the automaton (at the given position of the chunk) along with
+     * their evidence; returns {@code true} if all queries were found.
+     */
+    private boolean match(int state, char[] chunk, int offset, int end, int position) {
+        for (int w = 0; w < matches.length; w++) {
+            final var added = matcher.outputs[state * matches.length + w] & ~matches[w];
+            if (added != 0) {
+                matches[w] |= added;
+                remaining -= Long.bitCount(added);
+                evidence(w, added, chunk, offset, end, position);
+            }
+        }
+        found = remaining == 0;
+        return found;
+    }
+
+    /**
+     * Keeps the text around the given queries (bits of the given word) ending at the given position; a query spanning
+     * chunks is only partially contained.
+     */
+    private void evidence(int word, long queries, char[] chunk, int offset, int end, int position) {
+        if (evidence == null) {
+            evidence = new String[matcher.queries.size()];
+        }
+        for (var bits = queries; bits != 0; bits &= bits - 1) {
+            final var q = word * 64 + Long.numberOfTrailingZeros(bits);
+            final var from = Math.max(offset, position + 1 - matcher.queries.get(q).length() - EVIDENCE_CONTEXT);
+            final var to = Math.min(end, position + 1 + EVIDENCE_CONTEXT);
+            final var result = new StringBuilder(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                final var c = Character.isWhitespace(chunk[i]) ? ' ' : chunk[i];
+                if (c != ' ' || result.isEmpty() || result.charAt(result.length() - 1) != ' ') {
+                    result.append(c);
+                }
+            }
+            evidence[q] = result.toString();
+        }
+    }
+
+    private void tokenize(char c) {
+        switch (state) {
+            case TEXT -> {
+                if (c != '<') {
+                    text(c);
+                    return;
+                }
+                state = State.TAG_NAME;
+                nameLength = 0;
+            }
+            case TAG_NAME -> {
+                if (Character.isWhitespace(c)) {
+                    tag = tag();
+                    state = tag == null ? State.SKIP : State.ATTRIBUTES;
+                    attributesLength = 0;
+                    quote = 0;
+                } else if (c == '>') {
+                    if (nameLength == 2 && name[0] == '/' && name[1] == 'a') {
+                        closeText();
+                    }
+                    state = State.TEXT;
+                } else if (c == '<') {
+                    nameLength = 0;
+                } else if (nameLength < name.length) {
+                    name[nameLength++] = Character.toLowerCase(c);
+                } else {
+                    state = State.SKIP;
+                }
+            }
+            case ATTRIBUTES -> {
+                if (quote != 0) {
+                    quote = c == quote ? 0 : quote;
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    attributes();
+                    state = State.TEXT;
+                    return;
+                }
+                if (attributesLength == attributes.length && attributes.length < MAX_TAG_LENGTH) {
+                    attributes = Arrays.copyOf(attributes, attributes.length * 2);
+                }
+                if (attributesLength < attributes.length) {
+                    attributes[attributesLength++] = c;
+                } else {
+                    state = State.SKIP;
+                }
+            }
+            case SKIP -> {
+                if (c == '>') {
+                    state = State.TEXT;
+                }
+            }
+        }
+    }
+
+    private Tag tag() {
+        if (nameLength == 1 && name[0] == 'a') {
+            return Tag.ANCHOR;
+        }
+        if (nameLength == 4 && name[0] == 'b' && name[1] == 'a' && name[2] == 's' && name[3] == 'e') {
+            return baseHref == null ? Tag.BASE : null;
+        }
+        return null;
+    }
+
+    /**
+     * Looks for a double-quoted {@code href} attribute within the collected attribute section of the current tag.
+     * Empty values, values containing whitespace and fragments of the same page ({@code #top}) are ignored; queries
+     * and fragments of other pages are kept for the {@link Canonicalizer}.
+     */
+    private void attributes() {
+        int i = 0;
+        while (i < attributesLength) {
+            // attribute name
+            while (i < attributesLength && Character.isWhitespace(attributes[i])) {
+                i++;
+            }
+            final var nameStart = i;
+            while (i < attributesLength && attributes[i] != '=' && !Character.isWhitespace(attributes[i])) {
+                i++;
+            }
+            final var isHref = isHref(nameStart, i);
+            if (i >= attributesLength || attributes[i] != '=') {
+                i++;
+                continue;
+            }
+            i++;
+
+            // attribute value
+            if (i < attributesLength && (attributes[i] == '"' || attributes[i] == '\'')) {
+                final var delimiter = attributes[i++];
+                final var valueStart = i;
+                while (i < attributesLength && attributes[i] != delimiter) {
+                    i++;
+                }
+                if (isHref && delimiter == '"') {
+                    href(valueStart, i);
+                    return;
+                }
+                i++;
+            } else {
+                while (i < attributesLength && !Character.isWhitespace(attributes[i])) {
+                    i++;
+                }
+            }
+        }
+    }
+
+    private boolean isHref(int start, int end) {
+        if (end - start != HREF.length) {
+            return false;
+        }
+        for (int i = 0; i < HREF.length; i++) {
+            if (Character.toLowerCase(attributes[start + i]) != HREF[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void href(int start, int end) {
+        if (end == start || attributes[start] == '#') {
+            return;
+        }
+        for (int i = start; i < end; i++) {
+            if (Character.isWhitespace(attributes[i])) {
+                return;
+            }
+        }
+        final var href = new String(attributes, start, end - start);
+        if (tag == Tag.BASE) {
+            baseHref = href;
+        } else {
+            closeText();
+            hrefs.add(href);
+            texts.add("");
+            textLength = 0;
+        }
+    }
+
+    /**
+     * Appends the given character to the text of the current hyperlink (collapsing whitespace).
+     */
+    private void text(char c) {
+        if (Character.isWhitespace(c)) {
+            if (textLength > 0 && textLength < text.length && text[textLength - 1] != ' ') {
+                text[textLength++] = ' ';
+            }
+        } else if (textLength < text.length) {
+            text[textLength++] = c;
+        }
+    }
+
+    /**
+     * Stores the text of the current hyperlink (if any).
+     */
+    private void closeText() {
+        if (textLength > 0) {
+            final var length = text[textLength - 1] == ' ' ? textLength - 1 : textLength;
+            texts.set(texts.size() - 1, new String(text, 0, length));
+        }
+        textLength = -1;
+    }
+
+    /**
+     * Signals the end of the body.
+     */
+    void finish() {
+        closeText();
+        state = State.TEXT;
+    }
+
+    /**
+     * Were all query strings found?
+     */
+    boolean found() {
+        return found;
+    }
+
+    /**
+     * Query strings found so far
+     */
+    Set<String> matches() {
+        final var result = new TreeSet<String>();
+        for (int q = 0; q < matcher.queries.size(); q++) {
+            if ((matches[q / 64] & 1L << (q % 64)) != 0) {
+                result.add(matcher.queries.get(q));
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Text around the first occurrence per query found so far (whitespace collapsed)
+     */
+    Map<String, String> evidence() {
+        final var result = new TreeMap<String, String>();
+        for (int q = 0; q < matcher.queries.size(); q++) {
+            if ((matches[q / 64] & 1L << (q % 64)) != 0) {
+                result.put(matcher.queries.get(q), evidence[q]);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Raw {@code href} of the first base element (if any)
+     */
+    Optional<String> baseHref() {
+        return Optional.ofNullable(baseHref);
+    }
+
+    /**
+     * Raw {@code href}s of all hyperlinks in document order (empty if all query strings were found)
+     */
+    List<String> hrefs() {
+        return found ? List.of() : hrefs;
+    }
+
+    /**
+     * Texts of all hyperlinks in the order of {@link #hrefs()} (empty strings for hyperlinks without text)
+     */
+    List<String> texts() {
+        return found ? List.of() : texts;
+    }
+
+    /**
+     * Represents the number of characters consumed so far
+     */
+    int characters() {
+        return characters;
+    }
+
+    /**
+     * Represents the number of (encoded) bytes received by the {@link #subscriber(Set, Charset)} so far
+     */
+    long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Was reading the body stopped because it exceeded the limit of the {@link #subscriber}?
+     */
+    boolean truncated() {
+        return truncated;
+    }
+
+    /**
+     * Determines the charset announced by the {@code content-type} header; falls back to UTF-8.
+     */
+    static Charset charset(HttpHeaders headers) {
+        try {
+            return headers.firstValue("content-type")
+                    .map(MimeTypeUtils::parseMimeType)
+                    .map(MimeType::getCharset)
+                    .orElse(StandardCharsets.UTF_8);
+        } catch (InvalidMimeTypeException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    /**
+     * Creates a body subscriber which decodes the received bytes incrementally and feeds them into a new scanner.
+     * Reading is cancelled as soon as all query strings were found.
+     */
+    static BodySubscriber<PageScanner> subscriber(Set<String> queries, Charset charset) {
+        return subscriber(queries, charset, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #subscriber(Set, Charset)}, additionally handing every received chunk to the given tap (e.g. to copy
+     * the raw body; the tap must not modify the buffer) and stopping after the given number of bytes (the scanner is
+     * {@link #truncated()} then).
+     */
+    static BodySubscriber<PageScanner> subscriber(Set<String> queries, Charset charset, Consumer<ByteBuffer> tap,
+                                                  long limit) {
+        return new Subscriber(new PageScanner(queries), charset, tap, limit);
+    }
+
+    /**
+     * Creates a body subscriber for a rejected response: the body is either drained without decoding (small bodies
+     * on HTTP/1.1, so the connection can be reused) or the exchange is cancelled right away. The resulting scanner
+     * did not consume anything.
+     */
+    static BodySubscriber<PageScanner> rejecting(Set<String> queries, boolean drain) {
+        if (drain) {
+            return BodySubscribers.mapping(BodySubscribers.discarding(), ignored -> new PageScanner(queries));
+        }
+        return new Rejecting(new PageScanner(queries));
+    }
+
+    /**
+     * Scans the given (previously received) body.
+     */
+    static PageScanner scan(byte[] body, Charset charset, Set<String> queries) {
+        final var result = new PageScanner(queries);
+        // replaces malformed input like the subscriber
+        result.feed(charset.decode(ByteBuffer.wrap(body)));
+        result.finish();
+        return result;
+    }
+
+    private static final class Subscriber implements BodySubscriber<PageScanner> {
+        private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+        private final CompletableFuture<PageScanner> result = new CompletableFuture<>();
+        private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        private final PageScanner scanner;
+        private final CharsetDecoder decoder;
+        private final Consumer<ByteBuffer> tap;
+        private final long limit;
+        private Flow.Subscription subscription;
+        private ByteBuffer leftover = EMPTY;
+
+        private Subscriber(PageScanner scanner, Charset charset, Consumer<ByteBuffer> tap, long limit) {
+            this.scanner = scanner;
+            this.tap = tap;
+            this.limit = limit;
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        @Override
+        public CompletionStage<PageScanner> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (result.isDone()) {
+                return;
+            }
+            for (var item : items) {
+                final var allowed = limit - scanner.bytes;
+                if (item.remaining() > allowed) {
+                    item = item.slice(item.position(), (int) allowed);
+                    scanner.truncated = true;
+                }
+                scanner.bytes += item.remaining();
+                if (tap != null) {
+                    tap.accept(item.asReadOnlyBuffer());
+                }
+                final var bytes = leftover.hasRemaining() ? join(leftover, item) : item;
+                decode(bytes, false);
+                // keep incomplete multibyte sequences for the next chunk
+                leftover = bytes.hasRemaining() ? copy(bytes) : EMPTY;
+                if (scanner.found()) {
+                    subscription.cancel();
+                    result.complete(scanner);
+                    return;
+                }
+                if (scanner.truncated) {
+                    subscription.cancel();
+                    onComplete();
+                    return;
+                }
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (result.isDone()) {
+                return;
+            }
+            decode(leftover, true);
+            chars.clear();
+            decoder.flush(chars);
+            chars.flip();
+            scanner.feed(chars);
+            scanner.finish();
+            result.complete(scanner);
+        }
+
+        private void decode(ByteBuffer bytes, boolean endOfInput) {
+            CoderResult coderResult;
+            do {
+                chars.clear();
+                coderResult = decoder.decode(bytes, chars, endOfInput);
+                chars.flip();
+                if (scanner.feed(chars)) {
+                    return;
+                }
+            } while (coderResult.isOverflow());
+        }
+
+        private static ByteBuffer join(ByteBuffer first, ByteBuffer second) {
+            return ByteBuffer.allocate(first.remaining() + second.remaining())
+                    .put(first)
+                    .put(second)
+                    .flip();
+        }
+
+        private static ByteBuffer copy(ByteBuffer source) {
+            return ByteBuffer.allocate(source.remaining())
+                    .put(source)
+                    .flip();
+        }
+    }
+
+    /**
+     * Cancels the exchange as soon as the body is about to be received.
+     */
+    private static final class Rejecting implements BodySubscriber<PageScanner> {
+        private final CompletableFuture<PageScanner> result = new CompletableFuture<>();
+        private final PageScanner scanner;
+
+        private Rejecting(PageScanner scanner) {
+            this.scanner = scanner;
+        }
+
+        @Override
+        public CompletionStage<PageScanner> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.cancel();
+            result.complete(scanner);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.complete(scanner);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(scanner);
+        }
+    }
+
+}
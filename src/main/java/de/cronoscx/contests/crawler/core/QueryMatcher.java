@@ -0,0 +1,137 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Aho-Corasick automaton for a set of query strings, compiled into a dense transition table: finding all queries
+ * within a text takes a single table lookup per character, no matter how many queries there are. Characters not
+ * contained in any query share a single class, so the table stays small.
+ * <p>
+ * Immutable and shared by all scans of the same query set.
+ */
+final class QueryMatcher {
+    private static final int MAX_CACHED = 64;
+    private static final ConcurrentMap<Set<String>, QueryMatcher> CACHE = new ConcurrentHashMap<>();
+
+    final List<String> queries;
+    // number of character classes (class 0 = characters not contained in any query)
+    final int width;
+    // next state per state and character class: delta[state * width + class]
+    final int[] delta;
+    // does any query end in the state?
+    final boolean[] accepting;
+    // number of long words per state in outputs
+    final int words;
+    // queries (bits) ending in the state: outputs[state * words + word]
+    final long[] outputs;
+    private final int[] ascii = new int[128];
+    private final char[] nonAscii;
+
+    /**
+     * Returns the (possibly shared) matcher for the given queries.
+     */
+    static QueryMatcher of(Set<String> queries) {
+        final var known = CACHE.get(queries);
+        if (known != null) {
+            return known;
+        }
+        if (CACHE.size() >= MAX_CACHED) {
+            CACHE.clear();
+        }
+        final var result = new QueryMatcher(queries);
+        CACHE.putIfAbsent(Set.copyOf(queries), result);
+        return result;
+    }
+
+    private QueryMatcher(Set<String> queries) {
+        this.queries = List.copyOf(new TreeSet<>(queries));
+        this.words = Math.max(1, (this.queries.size() + 63) / 64);
+
+        // alphabet
+        final var alphabet = new TreeSet<Character>();
+        this.queries.forEach(query -> query.chars().forEach(c -> alphabet.add((char) c)));
+        final var others = new StringBuilder();
+        var index = 1;
+        for (final var c : alphabet) {
+            if (c < ascii.length) {
+                ascii[c] = index++;
+            } else {
+                others.append(c);
+            }
+        }
+        this.nonAscii = others.toString().toCharArray();
+        this.width = index + nonAscii.length;
+
+        // trie
+        final List<Map<Integer, Integer>> children = new ArrayList<>();
+        final List<long[]> output = new ArrayList<>();
+        children.add(new HashMap<>());
+        output.add(new long[words]);
+        for (int q = 0; q < this.queries.size(); q++) {
+            var state = 0;
+            for (final var c : this.queries.get(q).toCharArray()) {
+                final var next = children.get(state).get(classOf(c));
+                if (next != null) {
+                    state = next;
+                } else {
+                    children.add(new HashMap<>());
+                    output.add(new long[words]);
+                    children.get(state).put(classOf(c), children.size() - 1);
+                    state = children.size() - 1;
+                }
+            }
+            output.get(state)[q / 64] |= 1L << (q % 64);
+        }
+
+        // failure links in breadth-first order, folded into a complete transition table
+        final var states = children.size();
+        this.delta = new int[states * width];
+        this.accepting = new boolean[states];
+        this.outputs = new long[states * words];
+        final var fail = new int[states];
+        final var queue = new ArrayDeque<Integer>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            for (int w = 0; w < words; w++) {
+                output.get(state)[w] |= state == 0 ? 0 : output.get(fail[state])[w];
+                outputs[state * words + w] = output.get(state)[w];
+                accepting[state] |= output.get(state)[w] != 0;
+            }
+            for (int cls = 0; cls < width; cls++) {
+                final var child = children.get(state).get(cls);
+                if (child == null) {
+                    delta[state * width + cls] = state == 0 ? 0 : delta[fail[state] * width + cls];
+                } else {
+                    fail[child] = state == 0 ? 0 : delta[fail[state] * width + cls];
+                    delta[state * width + cls] = child;
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the character class of the given character.
+     */
+    int classOf(char c) {
+        if (c < ascii.length) {
+            return ascii[c];
+        }
+        if (nonAscii.length == 0) {
+            return 0;
+        }
+        final var position = Arrays.binarySearch(nonAscii, c);
+        return position < 0 ? 0 : width - nonAscii.length + position;
+    }
+
+}
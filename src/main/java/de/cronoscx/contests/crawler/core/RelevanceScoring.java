@@ -0,0 +1,76 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Best-first scoring: a reference is the more promising the more terms of the queries occur in the text of its
+ * hyperlink and in its path, the more promising the page containing it was and if that page matched a query. Every
+ * link followed costs one point, so references without any hint are dug breadth-first.
+ * <p>
+ * Terms are the lower case words (letters and digits) of at least three characters; e.g. "Door-to-Door" yields
+ * "door".
+ */
+public final class RelevanceScoring implements Assessor.Scoring {
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final int MIN_TERM_LENGTH = 3;
+    private static final double ANCHOR_WEIGHT = 2;
+    private static final double PATH_WEIGHT = 1;
+    private static final double HIT_WEIGHT = 1;
+    // share of the relevance of the page containing the hyperlink
+    private static final double INHERITANCE = 0.5;
+    private static final double DEPTH_PENALTY = 1;
+
+    // terms of the most recently scored queries (these rarely change)
+    private volatile Terms terms = new Terms(Set.of(), Set.of());
+
+    private record Terms(Set<String> queries, Set<String> terms) {
+    }
+
+    @Override
+    public double score(Assessor.Link link, Set<String> queries) {
+        final var relevance = ANCHOR_WEIGHT * overlap(queries, link.text())
+                + PATH_WEIGHT * overlap(queries, link.target().getPath())
+                + (link.parent() != null && link.parent().found() ? HIT_WEIGHT : 0)
+                // relevance of the parent, provided it was scored in the same way
+                + INHERITANCE * Math.max(0, link.parentScore() + DEPTH_PENALTY * (link.depth() - 1));
+        return relevance - DEPTH_PENALTY * link.depth();
+    }
+
+    /**
+     * Represents the share of the query terms occurring in the given text
+     */
+    private double overlap(Set<String> queries, String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        final var expected = terms(queries);
+        if (expected.isEmpty()) {
+            return 0;
+        }
+        final var actual = terms(text);
+        return (double) expected.stream().filter(actual::contains).count() / expected.size();
+    }
+
+    private Set<String> terms(Set<String> queries) {
+        final var known = terms;
+        if (known.queries().equals(queries)) {
+            return known.terms();
+        }
+        final var result = queries.stream()
+                .flatMap(query -> terms(query).stream())
+                .collect(Collectors.toUnmodifiableSet());
+        terms = new Terms(Set.copyOf(queries), result);
+        return result;
+    }
+
+    static Set<String> terms(String text) {
+        return Arrays.stream(SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(term -> term.length() >= MIN_TERM_LENGTH)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+}
@@ -0,0 +1,283 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Disk-backed cache of HTML responses, kept across crawl runs: {@link Transport} revalidates stored responses with
+ * {@code If-None-Match}/{@code If-Modified-Since} and rescans the stored body on {@code 304 Not Modified}, or skips
+ * the request entirely while a response is fresh according to {@code Cache-Control: max-age}.
+ * <p>
+ * Every entry is a single file named by the SHA-256 of its source. The total size of all entries is bounded; the
+ * least recently used entries are evicted first (after a restart, the order of writing approximates recency).
+ */
+public final class ResponseCache {
+    private static final Logger LOG = Logger.getLogger("ResponseCache");
+    private static final NumberFormat NUMBER_FORMAT = NumberFormat.getIntegerInstance(Locale.GERMAN);
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".entry";
+
+    private final Path directory;
+    private final long maxBytes;
+    // file name -> size; access order, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * How a request was served
+     */
+    enum Outcome {
+        /**
+         * from the cache without any request
+         */
+        FRESH,
+        /**
+         * from the cache after the server confirmed it with {@code 304 Not Modified}
+         */
+        REVALIDATED,
+        /**
+         * downloaded in full
+         */
+        MISS
+    }
+
+    /**
+     * Stored response
+     *
+     * @param contentType  value of the {@code content-type} header
+     * @param etag         validator for {@code If-None-Match} ({@code null} if none)
+     * @param lastModified validator for {@code If-Modified-Since} ({@code null} if none)
+     * @param expires      epoch millis until which the entry may be used without revalidation
+     * @param complete     was the body read entirely? (scanning stops as soon as the query was found)
+     */
+    record Entry(URI source,
+                 String contentType,
+                 String etag,
+                 String lastModified,
+                 long expires,
+                 boolean complete,
+                 byte[] body) {
+
+        boolean fresh() {
+            return System.currentTimeMillis() < expires;
+        }
+
+        Entry withExpires(long expires) {
+            return new Entry(source, contentType, etag, lastModified, expires, complete, body);
+        }
+    }
+
+    /**
+     * Opens (or creates) the cache in the given directory, evicting entries beyond the given size.
+     */
+    public ResponseCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        Arrays.setAll(outcomes, i -> new LongAdder());
+        try (final var files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(ResponseCache::modified))
+                    .forEach(file -> {
+                        final var size = size(file);
+                        index.put(file.getFileName().toString(), size);
+                        bytes += size;
+                    });
+        }
+        synchronized (this) {
+            evict();
+        }
+    }
+
+    /**
+     * Largest body worth storing
+     */
+    int maxBodySize() {
+        return (int) Math.min(Integer.MAX_VALUE - 1024, maxBytes / 4);
+    }
+
+    /**
+     * Returns the stored response for the given source (if any).
+     */
+    Optional<Entry> lookup(URI source) {
+        final var name = name(source);
+        synchronized (this) {
+            if (index.get(name) == null) {
+                return Optional.empty();
+            }
+        }
+        try {
+            final var entry = read(Files.readAllBytes(directory.resolve(name)));
+            return entry.source().equals(source) ? Optional.of(entry) : Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            // vanished or corrupt: treat as miss, will be replaced
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the given response, replacing a previous one of the same source.
+     */
+    void store(Entry entry) {
+        final var name = name(entry.source());
+        final var data = write(entry);
+        try {
+            final var temporary = Files.createTempFile(directory, "store-", ".tmp");
+            Files.write(temporary, data);
+            try {
+                Files.move(temporary, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOG.warning("💥 failed to cache %s: %s".formatted(entry.source(), e.getMessage()));
+            return;
+        }
+        synchronized (this) {
+            final var previous = index.put(name, (long) data.length);
+            bytes += data.length - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    void record(Outcome outcome) {
+        outcomes[outcome.ordinal()].increment();
+    }
+
+    /**
+     * Represents the number of requests served in the given way
+     */
+    long count(Outcome outcome) {
+        return outcomes[outcome.ordinal()].sum();
+    }
+
+    private void evict() {
+        final var iterator = index.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            final var eldest = iterator.next();
+            iterator.remove();
+            bytes -= eldest.getValue();
+            evictions.increment();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                LOG.warning("💥 failed to evict %s: %s".formatted(eldest.getKey(), e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Returns a "pretty" string with statistical key facts
+     */
+    public String statistics() {
+        final var fresh = count(Outcome.FRESH);
+        final var revalidated = count(Outcome.REVALIDATED);
+        final var misses = count(Outcome.MISS);
+        final var total = Math.max(1, fresh + revalidated + misses);
+        final long entries;
+        final long size;
+        synchronized (this) {
+            entries = index.size();
+            size = bytes;
+        }
+        return """
+                # cache hits: %s (%s %%; %s fresh, %s revalidated)
+                # cache misses: %s
+                # cache entries: %s (%s KiB, %s evicted)""".formatted(
+                NUMBER_FORMAT.format(fresh + revalidated),
+                NUMBER_FORMAT.format(100 * (fresh + revalidated) / total),
+                NUMBER_FORMAT.format(fresh),
+                NUMBER_FORMAT.format(revalidated),
+                NUMBER_FORMAT.format(misses),
+                NUMBER_FORMAT.format(entries),
+                NUMBER_FORMAT.format(size / 1024),
+                NUMBER_FORMAT.format(evictions.sum())
+        );
+    }
+
+    private static String name(URI source) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256")
+                    .digest(source.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest) + SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] write(Entry entry) {
+        final var result = new ByteArrayOutputStream(entry.body().length + 256);
+        try (final var out = new DataOutputStream(result)) {
+            out.writeInt(VERSION);
+            out.writeUTF(entry.source().toString());
+            out.writeUTF(entry.contentType());
+            out.writeUTF(entry.etag() == null ? "" : entry.etag());
+            out.writeUTF(entry.lastModified() == null ? "" : entry.lastModified());
+            out.writeLong(entry.expires());
+            out.writeBoolean(entry.complete());
+            out.writeInt(entry.body().length);
+            out.write(entry.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.toByteArray();
+    }
+
+    private static Entry read(byte[] data) throws IOException {
+        try (final var in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != VERSION) {
+                throw new IOException("unknown version");
+            }
+            final var source = URI.create(in.readUTF());
+            final var contentType = in.readUTF();
+            final var etag = in.readUTF();
+            final var lastModified = in.readUTF();
+            final var expires = in.readLong();
+            final var complete = in.readBoolean();
+            final var body = in.readNBytes(in.readInt());
+            return new Entry(source, contentType, etag.isEmpty() ? null : etag,
+                    lastModified.isEmpty() ? null : lastModified, expires, complete, body);
+        }
+    }
+
+    private static FileTime modified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+}
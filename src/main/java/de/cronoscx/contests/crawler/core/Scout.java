@@ -1,60 +1,131 @@
 package de.cronoscx.contests.crawler.core;
 
-import org.springframework.util.MimeTypeUtils;
-
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpClient.Redirect;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.Executor;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
-import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 public final class Scout implements AutoCloseable {
     private static final Logger LOG = Logger.getLogger("Scout");
-    private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
-
-    public record Report(URI source, String query, Boolean found, List<URI> references, Integer responseSize) {
-    }
-
-    private static final Pattern BASE_HREF_PATTERN = Pattern.compile(
-            "<base\s+href=\"(?<href>[^\"?#\s]+)/?\"",
-            Pattern.CASE_INSENSITIVE
-    );
-    private static final Pattern HYPERLINK_PATTERN = Pattern.compile(
-            "<a\s+[^>]*href=\"(?<href>[^\"?#\s]+)/?\"",
-            Pattern.CASE_INSENSITIVE
-    );
-    private final HttpClient client = HttpClient
-            .newBuilder()
-            .executor(executor)
-            .version(Crawler.HTTP_VERSION)
-            .connectTimeout(Duration.ofSeconds(Crawler.TIMEOUT_SECONDS))
-            .followRedirects(Redirect.ALWAYS)
-            .build();
+    // responses telling the host scheduler to back off
+    private static final Predicate<Transport.Page> OVERLOADED = page -> FetchPolicy.retryable(page.status());
+
+    /**
+     * Result of checking a single source
+     *
+     * @param queries  search terms the source was checked for
+     * @param matches  search terms contained in the source
+     * @param anchors  text of the hyperlinks per reference (references without text are missing)
+     * @param evidence text around the first occurrence per match
+     * @param failure  why the source was unavailable in every attempt ({@code null} if it was checked); such reports
+     *                 are not memorized, so the source may be checked again
+     */
+    public record Report(URI source, Set<String> queries, Set<String> matches, List<URI> references,
+                         Map<URI, String> anchors, Map<String, String> evidence, Integer responseSize,
+                         Metrics.Cause failure) {
+
+        public Report(URI source, String query, Boolean found, List<URI> references, Integer responseSize) {
+            this(source, Set.of(query), found ? Set.of(query) : Set.of(), references, Map.of(), Map.of(),
+                    responseSize, null);
+        }
+
+        /**
+         * A checked source without matches and references (e.g. a response that was not read)
+         */
+        public static Report empty(URI source, Set<String> queries, Integer responseSize) {
+            return new Report(source, queries, Set.of(), List.of(), Map.of(), Map.of(), responseSize, null);
+        }
+
+        /**
+         * A source which could not be checked for the given cause
+         */
+        public static Report failed(URI source, Set<String> queries, Metrics.Cause cause) {
+            Objects.requireNonNull(cause);
+            return new Report(source, queries, Set.of(), List.of(), Map.of(), Map.of(), 0, cause);
+        }
+
+        /**
+         * Was the source unavailable (e.g. timed out in every attempt)?
+         */
+        public boolean failed() {
+            return failure != null;
+        }
+
+        /**
+         * Is any of the search terms contained in the source?
+         */
+        public Boolean found() {
+            return !matches.isEmpty();
+        }
+    }
+
     private final Memory memory;
+    private final HostScheduler scheduler;
+    private final Transport transport;
+    private final Metrics metrics;
+    private final Canonicalizer canonicalizer;
+    // attempts of hedged fetches
+    private final ExecutorService attempts = Executors.newVirtualThreadPerTaskExecutor();
+    // transports created by the scout itself are closed along with it
+    private final boolean ownsTransport;
 
     public Scout(Memory memory) {
+        this(memory, new HostScheduler(Settings.DEFAULT.hostLimits()), new Transport(Settings.DEFAULT), new Metrics(),
+                new Canonicalizer(), true);
+    }
+
+    public Scout(Memory memory, HostScheduler scheduler, Transport transport, Metrics metrics) {
+        this(memory, scheduler, transport, metrics, new Canonicalizer());
+    }
+
+    public Scout(Memory memory, HostScheduler scheduler, Transport transport, Metrics metrics,
+                 Canonicalizer canonicalizer) {
+        this(memory, scheduler, transport, metrics, canonicalizer, false);
+    }
+
+    private Scout(Memory memory, HostScheduler scheduler, Transport transport, Metrics metrics,
+                  Canonicalizer canonicalizer, boolean ownsTransport) {
         this.memory = memory;
+        this.scheduler = scheduler;
+        this.transport = transport;
+        this.metrics = metrics;
+        this.canonicalizer = canonicalizer;
+        this.ownsTransport = ownsTransport;
     }
 
     /**
      * Transforms the given {@code href} based on source and base URL to form an absolute URI. Returns {@code null} if
      * parsing fails.
+     * <p>
+     * A base URL is resolved against the source and treated as directory unless its last segment looks like a file.
      */
     URI parse(String href,
               URI source,
               @SuppressWarnings("OptionalUsedAsFieldOrParameterType") Optional<URI> baseHref) {
         try {
+            final var root = rooted(source);
             return baseHref
-                    .map(base -> base.resolve(href))
-                    .orElse(source.resolve(href));
+                    .map(base -> directory(root.resolve(base)))
+                    .orElse(root)
+                    .resolve(href);
         } catch (Throwable th) {
             final var message = baseHref.map(base -> "\uD83D\uDCA5 failed to parse href \"%s\" with base \"%s\"".formatted(href, base))
                     .orElse("\uD83D\uDCA5 failed to parse href \"%s\"".formatted(href));
@@ -64,76 +135,244 @@ public final class Scout implements AutoCloseable {
     }
 
     /**
-     * Checks the given source for the existence of the given query string.
+     * {@link URI#resolve(String)} does not treat an empty path like "/" (e.g. "http://my-site.com" + "impressum")
+     */
+    private static URI rooted(URI source) {
+        final var path = source.getRawPath();
+        return source.isAbsolute() && (path == null || path.isEmpty())
+                ? source.resolve("/")
+                : source;
+    }
+
+    private static URI directory(URI base) {
+        final var path = base.getRawPath();
+        if (path == null || path.endsWith("/") || base.getRawQuery() != null || base.getRawFragment() != null) {
+            return base;
+        }
+        final var lastSegment = path.substring(path.lastIndexOf('/') + 1);
+        return lastSegment.contains(".") ? base : URI.create(base + "/");
+    }
+
+    /**
+     * Checks the given source for the existence of the given query string. The source should have been claimed via
+     * {@link Memory#tryClaim(URI)} before.
      */
     public Report check(URI source, String query) {
-        try {
-            memory.lock(source);
-            // check for previous results
-            return memory.findOrCall(source, uri -> {
+        return check(source, Set.of(query));
+    }
+
+    /**
+     * Checks the given source for the existence of all given query strings within a single pass over its body;
+     * references are only collected unless all of them were found. The source should have been claimed via
+     * {@link Memory#tryClaim(URI)} before.
+     * <p>
+     * References are {@link Canonicalizer canonical}; the target of a redirect is claimed along with the source, since
+     * its content is known now.
+     * <p>
+     * Failed attempts are retried according to the {@link FetchPolicy} of the transport; if all of them fail, the
+     * report is {@link Report#failed() failed}.
+     */
+    public Report check(URI source, Set<String> queries) {
+        // check for previous results
+        return memory.findOrCall(source, uri -> {
+            final var fetch = metrics.start(uri);
+            final var policy = transport.policy();
+            for (int attempt = 1; ; attempt++) {
                 try {
-                    // fetch data
-                    final var request = HttpRequest.newBuilder(uri)
-                            .version(Crawler.HTTP_VERSION)
-                            .timeout(Duration.ofSeconds(Crawler.TIMEOUT_SECONDS))
-                            .GET()
-                            .build();
-
-                    // wait for response
-                    final HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-                    final var responseSize = response.body().length();
-
-                    // invalid response
-                    if (response.statusCode() != 200) {
-                        return new Report(uri, query, false, List.of(), responseSize);
+                    if (attempt > 1) {
+                        fetch.retried();
+                        Thread.sleep(policy.backoff(attempt - 1));
+                    }
+                    final var page = attempt(uri, queries, fetch, policy);
+                    if (page.rejection() == Metrics.Cause.STATUS && FetchPolicy.retryable(page.status())
+                            && attempt < policy.maxAttempts()) {
+                        continue;
                     }
-                    if (response.headers().allValues("content-type").stream()
-                            .map(MimeTypeUtils::parseMimeType)
-                            .noneMatch(MimeTypeUtils.TEXT_HTML::isCompatibleWith)) {
-                        return new Report(uri, query, false, List.of(), responseSize);
+                    return report(uri, queries, page, fetch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fetch.failed(e);
+                    return Report.failed(uri, queries, Metrics.Cause.CANCELLED);
+                } catch (Throwable throwable) {
+                    if (FetchPolicy.retryable(throwable) && attempt < policy.maxAttempts()) {
+                        continue;
                     }
+                    fetch.failed(throwable);
+                    LOG.warning("\uD83D\uDCA5 failed request to %s".formatted(uri));
+                    return Report.failed(uri, queries, Metrics.Cause.of(throwable));
+                }
+            }
+        });
+    }
+
+    /**
+     * Fetches the given source once: waits for a host slot, then for the response (or cache) while scanning the body.
+     * With hedging, a duplicate request is sent once the request is slower than most fetches were; the first
+     * successful response wins and the other request is cancelled.
+     */
+    private Transport.Page attempt(URI uri, Set<String> queries, Metrics.Fetch fetch, FetchPolicy policy)
+            throws Exception {
+        final var responded = new AtomicBoolean();
+        final IntConsumer first = status -> {
+            if (responded.compareAndSet(false, true)) {
+                fetch.responded(status);
+            }
+        };
+        final var delay = policy.hedging() ? metrics.latency(policy.hedgeQuantile()) : Optional.<Duration>empty();
+        if (delay.isEmpty()) {
+            return scheduler.run(uri, () -> {
+                fetch.started();
+                return transport.scan(uri, queries, first);
+            }, OVERLOADED);
+        }
+
+        final var sent = new CompletableFuture<Void>();
+        final var primary = submit(() -> scheduler.run(uri, () -> {
+            fetch.started();
+            sent.complete(null);
+            return transport.scan(uri, queries, first);
+        }, OVERLOADED));
+        CompletableFuture<Transport.Page> hedge = null;
+        try {
+            // the delay starts as soon as the request was sent (not while waiting for a host slot)
+            CompletableFuture.anyOf(sent, primary).handle((value, throwable) -> null).get();
+            if (primary.isDone()) {
+                return join(primary);
+            }
+            try {
+                return primary.get(delay.get().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                hedge = submit(() -> scheduler.run(uri, () -> transport.scan(uri, queries, first), OVERLOADED));
+            } catch (ExecutionException e) {
+                return join(primary);
+            }
+            final var page = join(firstSuccessful(primary, hedge));
+            metrics.hedged(hedge.getNow(null) == page);
+            return page;
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private Report report(URI uri, Set<String> queries, Transport.Page page, Metrics.Fetch fetch) {
+        final var scan = page.scan();
+        if (!page.uri().equals(uri)) {
+            memory.tryClaim(canonicalizer.redirected(uri, page.uri()));
+        }
+        final var responseSize = scan.characters();
+        fetch.received(scan.bytes());
+
+        // invalid response (body was not read); overloaded servers may answer the next crawl
+        if (page.rejection() != null) {
+            fetch.rejected(page.rejection());
+            return page.rejection() == Metrics.Cause.STATUS && FetchPolicy.retryable(page.status())
+                    ? Report.failed(uri, queries, page.rejection())
+                    : Report.empty(uri, queries, responseSize);
+        }
+
+        // all queries containted in response body?
+        if (scan.found()) {
+            fetch.completed(true, 0);
+            return new Report(uri, queries, scan.matches(), List.of(), Map.of(), scan.evidence(), responseSize,
+                    null);
+        }
+
+        // resolve base url if present
+        final var baseHref = scan.baseHref()
+                .map(href -> parse(href, page.uri(), Optional.empty()))
+                .filter(Objects::nonNull);
 
-                    // query containted in response body?
-                    final var body = response.body();
-                    if (body.contains(query)) {
-                        return new Report(uri, query, true, List.of(), responseSize);
+        // resolve other links contained in current response body (keeping the first text per reference)
+        final Map<URI, String> anchors = new HashMap<>();
+        final var hrefs = scan.hrefs();
+        final var texts = scan.texts();
+        final var references = IntStream.range(0, hrefs.size())
+                .filter(i -> !hrefs.get(i).startsWith("#")) // no anchors to eliminate redundant processing
+                .filter(i -> !hrefs.get(i).startsWith("mailto")) // no mailto links
+                .filter(i -> !hrefs.get(i).startsWith("javascript")) // no scripts
+                .mapToObj(i -> {
+                    final var reference = parse(hrefs.get(i), page.uri(), baseHref);
+                    if (reference == null) {
+                        return null;
+                    }
+                    final var canonical = canonicalizer.canonicalize(reference);
+                    if (!texts.get(i).isEmpty()) {
+                        anchors.putIfAbsent(canonical, texts.get(i));
                     }
+                    return canonical;
+                })
+                .filter(Objects::nonNull)
+                .sorted()
+                .distinct()
+                .toList();
+        fetch.completed(!scan.matches().isEmpty(), references.size());
+        return new Report(uri, queries, scan.matches(), references, Map.copyOf(anchors), scan.evidence(),
+                responseSize, null);
+    }
 
-                    // extract base url if present
-                    final var baseHrefMatcher = BASE_HREF_PATTERN.matcher(response.body());
-                    final var baseHref = baseHrefMatcher.results()
-                            .findFirst()
-                            .map(match -> match.group("href"))
-                            .map(href -> parse(href, source, Optional.empty()))
-                            .filter(Objects::nonNull);
-
-                    // extract other links contained in current response body
-                    final var hyperlinkMatcher = HYPERLINK_PATTERN.matcher(response.body());
-                    final var references = hyperlinkMatcher.results()
-                            .map(match -> match.group("href"))
-                            .filter(href -> !href.startsWith("#")) // no anchors to eliminate redundant processing
-                            .filter(href -> !href.startsWith("mailto")) // no mailto links
-                            .filter(href -> !href.startsWith("javascript")) // no scripts
-                            .map(href -> parse(href, source, baseHref))
-                            .filter(Objects::nonNull)
-                            .sorted()
-                            .distinct()
-                            .toList();
-                    return new Report(uri, query, false, references, responseSize);
-
-                } catch (Throwable ignored) {
-                    LOG.warning("\uD83D\uDCA5 failed request to %s".formatted(uri));
-                    return new Report(uri, query, false, List.of(), 0);
+    /**
+     * Runs the given task on a virtual thread; cancelling the returned future interrupts the task.
+     */
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        final var result = new CompletableFuture<T>();
+        final var future = attempts.submit(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+        });
+        result.whenComplete((value, throwable) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        final var result = new CompletableFuture<T>();
+        final var pending = new AtomicInteger(2);
+        for (final var future : List.of(first, second)) {
+            future.whenComplete((value, throwable) -> {
+                if (throwable == null) {
+                    result.complete(value);
+                } else if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(throwable);
                 }
             });
-        } finally {
-            memory.release(source);
+        }
+        return result;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
         }
     }
 
+    /**
+     * Cancels hedged attempts and closes the transport if it was created by this scout; shared transports are closed
+     * by their owner.
+     */
     @Override
     public void close() {
-        client.close();
+        attempts.shutdownNow();
+        if (ownsTransport) {
+            transport.close();
+        }
     }
 
 }
@@ -0,0 +1,99 @@
+package de.cronoscx.contests.crawler.core;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Tuning knobs of a crawl.
+ *
+ * @param concurrency      maximum number of concurrent checks (for strategies supporting a limit)
+ * @param hostLimits       politeness limits applied per host
+ * @param httpVersion      preferred protocol; {@link HttpClient.Version#HTTP_2} falls back to HTTP/1.1 if not
+ *                         supported
+ * @param timeout          connect and response timeout of requests (until the response headers arrived)
+ * @param maxBodySize      number of bytes read per response at most; larger bodies are rejected (if declared) or
+ *                         truncated
+ * @param spillDirectory   directory for frontier entries exceeding the capacity ({@code null} keeps all on the heap)
+ * @param frontierCapacity number of frontier entries (in total) kept on the heap if a spill directory is given
+ * @param fetchPolicy      body timeout, retries and hedging of fetches
+ */
+public record Settings(int concurrency,
+                       HostScheduler.Limits hostLimits,
+                       HttpClient.Version httpVersion,
+                       Duration timeout,
+                       long maxBodySize,
+                       Path spillDirectory,
+                       int frontierCapacity,
+                       FetchPolicy fetchPolicy) {
+    public static final Settings DEFAULT = new Settings(
+            64,
+            HostScheduler.Limits.DEFAULT,
+            HttpClient.Version.HTTP_2,
+            Duration.ofSeconds(10),
+            8 * 1024 * 1024,
+            null,
+            100_000,
+            FetchPolicy.DEFAULT
+    );
+
+    public Settings {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive: %d".formatted(concurrency));
+        }
+        if (maxBodySize < 1) {
+            throw new IllegalArgumentException("maxBodySize must be positive: %d".formatted(maxBodySize));
+        }
+        if (frontierCapacity < 1) {
+            throw new IllegalArgumentException("frontierCapacity must be positive: %d".formatted(frontierCapacity));
+        }
+    }
+
+    /**
+     * Creates an empty frontier according to these settings.
+     */
+    public Frontier frontier() {
+        return new Frontier(spillDirectory, frontierCapacity);
+    }
+
+    public Settings withConcurrency(int concurrency) {
+        return new Settings(concurrency, hostLimits, httpVersion, timeout, maxBodySize, spillDirectory,
+                frontierCapacity, fetchPolicy);
+    }
+
+    public Settings withHostLimits(HostScheduler.Limits hostLimits) {
+        return new Settings(concurrency, hostLimits, httpVersion, timeout, maxBodySize, spillDirectory,
+                frontierCapacity, fetchPolicy);
+    }
+
+    public Settings withHttpVersion(HttpClient.Version httpVersion) {
+        return new Settings(concurrency, hostLimits, httpVersion, timeout, maxBodySize, spillDirectory,
+                frontierCapacity, fetchPolicy);
+    }
+
+    public Settings withTimeout(Duration timeout) {
+        return new Settings(concurrency, hostLimits, httpVersion, timeout, maxBodySize, spillDirectory,
+                frontierCapacity, fetchPolicy);
+    }
+
+    public Settings withMaxBodySize(long maxBodySize) {
+        return new Settings(concurrency, hostLimits, httpVersion, timeout, maxBodySize, spillDirectory,
+                frontierCapacity, fetchPolicy);
+    }
+
+    public Settings withSpillDirectory(Path spillDirectory) {
+        return new Settings(concurrency, hostLimits, httpVersion, timeout, maxBodySize, spillDirectory,
+                frontierCapacity, fetchPolicy);
+    }
+
+    public Settings withFrontierCapacity(int frontierCapacity) {
+        return new Settings(concurrency, hostLimits, httpVersion, timeout, maxBodySize, spillDirectory,
+                frontierCapacity, fetchPolicy);
+    }
+
+    public Settings withFetchPolicy(FetchPolicy fetchPolicy) {
+        return new Settings(concurrency, hostLimits, httpVersion, timeout, maxBodySize, spillDirectory,
+                frontierCapacity, fetchPolicy);
+    }
+
+}
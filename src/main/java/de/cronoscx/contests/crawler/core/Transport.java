@@ -0,0 +1,365 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.text.NumberFormat;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Single {@link HttpClient} shared by all parties of a crawl ({@link Scout} and {@link Assessor}), so connections
+ * (and TLS sessions) are reused instead of being established per verification. With {@link HttpClient.Version#HTTP_2}
+ * the client negotiates HTTP/2 (multiplexing all requests to an origin over one connection) and falls back to
+ * HTTP/1.1 with keep-alive where the server does not support it.
+ * <p>
+ * {@link HttpClient} does not expose its connections, so reuse is approximated: distinct TLS sessions correspond to
+ * full handshakes, distinct origins are the lower bound of connections.
+ * <p>
+ * With a {@link ResponseCache}, {@link #scan(URI, Set, IntConsumer)} serves unchanged pages from disk.
+ */
+public final class Transport implements AutoCloseable {
+    private static final NumberFormat NUMBER_FORMAT = NumberFormat.getIntegerInstance(Locale.GERMAN);
+    // largest body of a rejected response that is drained rather than cancelled
+    private static final long DRAIN_LIMIT = 16 * 1024;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Settings settings;
+    private final HttpClient client;
+    private final LongAdder http2 = new LongAdder();
+    private final LongAdder http11 = new LongAdder();
+    private final Set<String> origins = ConcurrentHashMap.newKeySet();
+    private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+    private final ResponseCache cache;
+
+    /**
+     * Scanned page
+     *
+     * @param uri         location the body was fetched from (differs from the source if redirected)
+     * @param status      HTTP status ({@code 200} if served from the cache)
+     * @param contentType value of the {@code content-type} header (empty if there is none)
+     * @param scan        result of scanning the body for the queries
+     * @param rejection   reason why the body was not read ({@code null} if it was)
+     */
+    record Page(URI uri, int status, String contentType, PageScanner scan, Metrics.Cause rejection) {
+    }
+
+    public Transport(Settings settings) {
+        this(settings, null);
+    }
+
+    /**
+     * @param cache stores responses across runs ({@code null} for none)
+     */
+    public Transport(Settings settings, ResponseCache cache) {
+        this.settings = settings;
+        this.cache = cache;
+        this.client = HttpClient
+                .newBuilder()
+                .executor(executor)
+                .version(settings.httpVersion())
+                .connectTimeout(settings.timeout())
+                .followRedirects(Redirect.ALWAYS)
+                .build();
+    }
+
+    /**
+     * Represents the reaction to slow and failing fetches
+     */
+    FetchPolicy policy() {
+        return settings.fetchPolicy();
+    }
+
+    /**
+     * Creates a GET request for the given source using the configured protocol version and timeout.
+     */
+    public HttpRequest get(URI source) {
+        return HttpRequest.newBuilder(source)
+                .version(settings.httpVersion())
+                .timeout(settings.timeout())
+                .GET()
+                .build();
+    }
+
+    /**
+     * Sends the given request (blocking) and keeps track of the negotiated protocol and TLS session.
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        return record(client.send(request, handler));
+    }
+
+    /**
+     * Sends the given request (blocking) like {@link #send} but aborts it if the body does not arrive within the
+     * {@link FetchPolicy#bodyTimeout()} after the headers.
+     */
+    private <T> HttpResponse<T> exchange(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        final var headers = new CompletableFuture<Void>();
+        final var response = client.sendAsync(request, info -> {
+            headers.complete(null);
+            return handler.apply(info);
+        });
+        try {
+            // until the headers arrived, the timeout of the request applies
+            CompletableFuture.anyOf(headers, response).get();
+            final var bodyTimeout = settings.fetchPolicy().bodyTimeout();
+            return record(response.get(bodyTimeout.toNanos(), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            throw new HttpTimeoutException("body of %s not received in time".formatted(request.uri()));
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            throw cause instanceof IOException io ? io : new IOException(cause);
+        }
+    }
+
+    private <T> HttpResponse<T> record(HttpResponse<T> response) {
+        (response.version() == HttpClient.Version.HTTP_2 ? http2 : http11).increment();
+        origins.add(response.uri().getScheme() + "://" + response.uri().getRawAuthority());
+        response.sslSession().ifPresent(session -> sessions.add(HexFormat.of().formatHex(session.getId())));
+        return response;
+    }
+
+    /**
+     * Fetches the given source and scans its body for the given queries. With a cache, a stored response is used
+     * without a request while it is fresh, revalidated via {@code If-None-Match}/{@code If-Modified-Since} otherwise
+     * and rescanned on {@code 304 Not Modified}; complete HTML responses are stored.
+     *
+     * @param responded called with the status as soon as the response headers arrived (or the cache answered)
+     */
+    Page scan(URI source, Set<String> queries, IntConsumer responded) throws IOException, InterruptedException {
+        return scan(source, queries, responded, true);
+    }
+
+    private Page scan(URI source, Set<String> queries, IntConsumer responded, boolean conditional)
+            throws IOException, InterruptedException {
+        final var cached = cache == null || !conditional ? Optional.<ResponseCache.Entry>empty() : cache.lookup(source);
+        if (cached.isPresent() && cached.get().fresh()) {
+            final var page = replay(cached.get(), queries);
+            if (page.isPresent()) {
+                cache.record(ResponseCache.Outcome.FRESH);
+                responded.accept(page.get().status());
+                return page.get();
+            }
+        }
+
+        final var request = HttpRequest.newBuilder(source)
+                .version(settings.httpVersion())
+                .timeout(settings.timeout())
+                .GET();
+        cached.ifPresent(entry -> {
+            if (entry.etag() != null) {
+                request.header("If-None-Match", entry.etag());
+            }
+            if (entry.lastModified() != null) {
+                request.header("If-Modified-Since", entry.lastModified());
+            }
+        });
+        final var copy = cache == null ? null : new Copy(cache.maxBodySize());
+        final var response = exchange(request.build(), info -> {
+            responded.accept(info.statusCode());
+            // decide from status line and headers whether the body is worth reading at all
+            if (rejection(info.statusCode(), info.headers()) != null) {
+                return PageScanner.rejecting(queries, drain(info));
+            }
+            return PageScanner.subscriber(queries, PageScanner.charset(info.headers()), copy, settings.maxBodySize());
+        });
+
+        // not modified: rescan the stored body
+        if (response.statusCode() == 304 && cached.isPresent()) {
+            final var entry = cached.get();
+            final var page = replay(entry, queries);
+            if (page.isEmpty()) {
+                // the stored body is incomplete and does not answer these queries
+                return scan(source, queries, responded, false);
+            }
+            cache.record(ResponseCache.Outcome.REVALIDATED);
+            final var expires = expires(response.headers());
+            if (expires > entry.expires()) {
+                cache.store(entry.withExpires(expires));
+            }
+            return page.get();
+        }
+
+        final var contentType = response.headers().firstValue("content-type").orElse("");
+        if (cache != null) {
+            cache.record(ResponseCache.Outcome.MISS);
+            store(source, response, contentType, copy);
+        }
+        return new Page(response.uri(), response.statusCode(), contentType, response.body(),
+                rejection(response.statusCode(), response.headers()));
+    }
+
+    /**
+     * Returns the reason why a response with the given status and headers is not worth reading ({@code null} if it
+     * is).
+     */
+    private Metrics.Cause rejection(int status, HttpHeaders headers) {
+        if (status != 200) {
+            return Metrics.Cause.STATUS;
+        }
+        if (!isHtml(headers.firstValue("content-type").orElse(""))) {
+            return Metrics.Cause.CONTENT_TYPE;
+        }
+        if (headers.firstValueAsLong("content-length").orElse(0) > settings.maxBodySize()) {
+            return Metrics.Cause.TOO_LARGE;
+        }
+        return null;
+    }
+
+    /**
+     * Should the body of a rejected response be drained instead of cancelling the exchange? Cancelling closes an
+     * HTTP/1.1 connection, so small bodies are cheaper to drain; HTTP/2 just resets the stream.
+     */
+    private static boolean drain(HttpResponse.ResponseInfo info) {
+        if (info.statusCode() == 304) {
+            return true;
+        }
+        final var length = info.headers().firstValueAsLong("content-length").orElse(-1);
+        return info.version() == HttpClient.Version.HTTP_1_1 && length >= 0 && length <= DRAIN_LIMIT;
+    }
+
+    private static boolean isHtml(String contentType) {
+        try {
+            return MimeTypeUtils.TEXT_HTML.isCompatibleWith(MimeTypeUtils.parseMimeType(contentType));
+        } catch (InvalidMimeTypeException e) {
+            return false;
+        }
+    }
+
+    private static Optional<Page> replay(ResponseCache.Entry entry, Set<String> queries) {
+        final var charset = PageScanner.charset(HttpHeaders.of(
+                Map.of("content-type", List.of(entry.contentType())), (name, value) -> true));
+        final var scan = PageScanner.scan(entry.body(), charset, queries);
+        if (!entry.complete() && !scan.found()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Page(entry.source(), 200, entry.contentType(), scan, null));
+    }
+
+    private void store(URI source, HttpResponse<PageScanner> response, String contentType, Copy copy) {
+        // only complete pages are worth storing (no errors, no documents)
+        if (rejection(response.statusCode(), response.headers()) != null || response.body().truncated()
+                || copy.overflow) {
+            return;
+        }
+        final var expires = expires(response.headers());
+        final var etag = response.headers().firstValue("etag").orElse(null);
+        final var lastModified = response.headers().firstValue("last-modified").orElse(null);
+        if (expires < 0 || (etag == null && lastModified == null && expires <= System.currentTimeMillis())) {
+            return;
+        }
+        // scanning stops at the first match, so the body of a match is incomplete
+        cache.store(new ResponseCache.Entry(source, contentType, etag, lastModified, expires,
+                !response.body().found(), copy.body.toByteArray()));
+    }
+
+    /**
+     * Derives the expiry (epoch millis) from the {@code Cache-Control} header: {@code -1} for {@code no-store},
+     * {@code 0} if the response must be revalidated before every use.
+     */
+    static long expires(HttpHeaders headers) {
+        long maxAge = 0;
+        for (final var value : headers.allValues("cache-control")) {
+            for (final var directive : value.split(",")) {
+                final var normalized = directive.trim().toLowerCase(Locale.ROOT);
+                if (normalized.equals("no-store")) {
+                    return -1;
+                }
+                if (normalized.equals("no-cache")) {
+                    return 0;
+                }
+                if (normalized.startsWith("max-age=")) {
+                    try {
+                        maxAge = Long.parseLong(normalized.substring("max-age=".length()));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+        }
+        return maxAge > 0 ? System.currentTimeMillis() + maxAge * 1000 : 0;
+    }
+
+    /**
+     * Copies the raw body up to the given limit.
+     */
+    private static final class Copy implements Consumer<ByteBuffer> {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final int limit;
+        private boolean overflow;
+
+        private Copy(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void accept(ByteBuffer chunk) {
+            if (overflow || body.size() + chunk.remaining() > limit) {
+                overflow = true;
+                return;
+            }
+            final var bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            body.writeBytes(bytes);
+        }
+    }
+
+    /**
+     * Returns a "pretty" string with statistical key facts
+     */
+    public String statistics() {
+        final var requests = http2.sum() + http11.sum();
+        return """
+                # responses: %s (HTTP/2: %s, HTTP/1.1: %s)
+                # origins: %s
+                # TLS sessions: %s (%s responses per session)""".formatted(
+                NUMBER_FORMAT.format(requests),
+                NUMBER_FORMAT.format(http2.sum()),
+                NUMBER_FORMAT.format(http11.sum()),
+                NUMBER_FORMAT.format(origins.size()),
+                NUMBER_FORMAT.format(sessions.size()),
+                NUMBER_FORMAT.format(sessions.isEmpty() ? 0 : requests / sessions.size())
+        );
+    }
+
+    /**
+     * Aborts requests which are still in flight (e.g. of cancelled checks) instead of waiting for them.
+     */
+    @Override
+    public void close() {
+        client.shutdownNow();
+        executor.shutdownNow();
+    }
+
+}
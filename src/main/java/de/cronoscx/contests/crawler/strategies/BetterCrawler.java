@@ -1,19 +1,123 @@
 package de.cronoscx.contests.crawler.strategies;
 
+import de.cronoscx.contests.crawler.core.Assessor;
 import de.cronoscx.contests.crawler.core.Crawler;
+import de.cronoscx.contests.crawler.core.Frontier;
+import de.cronoscx.contests.crawler.core.Memory;
+import de.cronoscx.contests.crawler.core.Scout;
+import de.cronoscx.contests.crawler.core.Settings;
 
 import java.net.URI;
-import java.util.Optional;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Best-first crawler: a single coordinating thread owns the {@link Frontier} and hands out the most promising sources
+ * (see {@link Assessor#score}) to virtual threads while never exceeding the configured number of concurrent checks.
+ * Every check looks for all queries which are still unresolved; as soon as the last one was found, all checks still in
+ * flight are cancelled and awaited, so no request of a dig outlives it.
+ */
 public class BetterCrawler extends Crawler {
-    // ~~~~~~~~~~~~~~~~~~~~~~~~ 👇 Place magic here 👇 ~~~~~~~~~~~~~~~~~~~~~~~~
+    private final Scout scout = new Scout(memory, scheduler, transport, metrics, canonicalizer);
+
+    public BetterCrawler() {
+        super();
+    }
+
+    public BetterCrawler(int concurrency) {
+        this(new Memory(), new Assessor(), Settings.DEFAULT.withConcurrency(concurrency));
+    }
+
+    public BetterCrawler(Memory memory, Assessor assessor, Settings settings) {
+        super(memory, assessor, settings);
+    }
+
+    private record Visit(Frontier.Entry entry, Scout.Report report) {
+    }
+
     @Override
-    public Optional<URI> dig(URI source, String query) {
-        return Optional.empty();
+    public Map<String, URI> dig(URI source, Set<String> queries) {
+        // resumed crawl: the previous run already found matches
+        final var result = matches(queries);
+        if (result.keySet().containsAll(queries)) {
+            return result;
+        }
+
+        final Set<Future<Visit>> inFlight = new HashSet<>();
+        final var checks = Executors.newVirtualThreadPerTaskExecutor();
+        final CompletionService<Visit> completions = new ExecutorCompletionService<>(checks);
+        try (final var frontier = settings.frontier()) {
+            final var start = canonicalizer.canonicalize(source);
+            claim(start);
+            frontier.offer(start, 0);
+            // resumed crawl: sources the previous run did not check anymore
+            for (final var pending : memory.drainPending()) {
+                if (assessor.relevant(pending)) {
+                    final var link = new Assessor.Link(pending, "", 1, null, 0);
+                    frontier.offer(pending, 1, assessor.score(link, queries));
+                }
+            }
+
+            while (!frontier.isEmpty() || !inFlight.isEmpty()) {
+                // fill up free slots in best-first order
+                while (inFlight.size() < settings.concurrency() && !frontier.isEmpty()) {
+                    final var entry = frontier.poll().orElseThrow();
+                    final var unresolved = unresolved(queries, result);
+                    inFlight.add(completions.submit(() -> new Visit(entry, scout.check(entry.source(), unresolved))));
+                }
+
+                // wait for the next check to complete
+                final var completed = completions.take();
+                inFlight.remove(completed);
+                final var visit = completed.get();
+                LOG.fine(() -> "~~> %s".formatted(visit.entry().source()));
+
+                // query matches found
+                visit.report().matches().forEach(query -> result.putIfAbsent(query, visit.entry().source()));
+                if (result.keySet().containsAll(queries)) {
+                    return result;
+                }
+
+                // source unavailable: check it again later
+                if (visit.report().failed()) {
+                    requeue(frontier, visit.entry());
+                    continue;
+                }
+
+                // queries left: schedule unclaimed references one level deeper
+                final var unresolved = unresolved(queries, result);
+                for (final var reference : visit.report().references()) {
+                    if (assessor.relevant(reference) && claim(reference)) {
+                        final var link = new Assessor.Link(reference,
+                                visit.report().anchors().getOrDefault(reference, ""),
+                                visit.entry().depth() + 1, visit.report(), visit.entry().score());
+                        frontier.offer(reference, link.depth(), assessor.score(link, unresolved));
+                    }
+                }
+                metrics.frontier(frontier.size());
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return result;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            // a cancelled future is done right away: wait for its check to return
+            checks.close();
+        }
     }
 
     @Override
-    public void close() throws Exception {
+    public void close() {
+        scout.close();
+        transport.close();
     }
-    // ~~~~~~~~~~~~~~~~~~~~~~~~ 👆 Place magic here 👆~~~~~~~~~~~~~~~~~~~~~~~~
 }
@@ -1,37 +1,94 @@
 package de.cronoscx.contests.crawler.strategies;
 
+import de.cronoscx.contests.crawler.core.Assessor;
 import de.cronoscx.contests.crawler.core.Crawler;
+import de.cronoscx.contests.crawler.core.Memory;
 import de.cronoscx.contests.crawler.core.Scout;
+import de.cronoscx.contests.crawler.core.Settings;
 
 import java.net.URI;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
 public class RecursiveCrawler extends Crawler {
-    private final Scout scout = new Scout(memory);
+    private final Scout scout = new Scout(memory, scheduler, transport, metrics, canonicalizer);
+
+    public RecursiveCrawler() {
+        super();
+    }
+
+    public RecursiveCrawler(Memory memory, Assessor assessor, Settings settings) {
+        super(memory, assessor, settings);
+    }
 
     @Override
-    public Optional<URI> dig(URI source, String query) {
-        final Scout.Report report;
-        report = scout.check(source, query);
-        LOG.info("~~> %s @ %s".formatted(source, Thread.currentThread().getName()));
-
-        // query match found
-        if (report.found()) {
-            return Optional.of(source);
+    public Map<String, URI> dig(URI source, Set<String> queries) {
+        // resumed crawl: the previous run already found matches
+        final var result = matches(queries);
+        if (result.keySet().containsAll(queries)) {
+            return result;
+        }
+        // resumed crawl: sources the previous run did not check anymore
+        final var pending = memory.drainPending();
+
+        final var start = canonicalizer.canonicalize(source);
+        claim(start);
+        if (!descend(start, 0, 0, queries, result)) {
+            pending.parallelStream()
+                    .filter(assessor::relevant)
+                    .anyMatch(reference -> descend(reference, 1, -1, queries, result));
+        }
+        return result;
+    }
+
+    /**
+     * Checks the given (claimed) source for all unresolved queries and descends into its unclaimed references, most
+     * promising first; returns {@code true} as soon as all queries are resolved.
+     */
+    private boolean descend(URI source, int depth, double score, Set<String> queries, Map<String, URI> result) {
+        final var unresolved = unresolved(queries, result);
+        if (unresolved.isEmpty()) {
+            return true;
+        }
+        final var report = check(source, unresolved);
+        LOG.fine(() -> "~~> %s @ %s".formatted(source, Thread.currentThread().getName()));
+
+        // query matches found
+        report.matches().forEach(query -> result.putIfAbsent(query, source));
+        if (result.keySet().containsAll(queries)) {
+            return true;
         }
 
-        // no match: use recursion
-        return report.references().parallelStream()
+        // queries left: use recursion
+        final var remaining = unresolved(queries, result);
+        return report.references().stream()
                 .filter(assessor::relevant)
-                .filter(memory::unknown)
-                .map(reference -> dig(reference, query))
-                .filter(Optional::isPresent)
-                .findFirst()
-                .orElse(Optional.empty());
+                .map(reference -> new Assessor.Link(reference, report.anchors().getOrDefault(reference, ""),
+                        depth + 1, report, score))
+                .map(link -> Map.entry(link, assessor.score(link, remaining)))
+                .sorted(Map.Entry.<Assessor.Link, Double>comparingByValue().reversed())
+                .toList()
+                .parallelStream()
+                .filter(scored -> claim(scored.getKey().target()))
+                .anyMatch(scored -> descend(scored.getKey().target(), depth + 1, scored.getValue(), queries,
+                        result));
+    }
+
+    /**
+     * Checks the given source; there is no frontier to give unavailable sources back to, so they are checked again
+     * right away (as often as the fetch policy requeues them).
+     */
+    private Scout.Report check(URI source, Set<String> queries) {
+        var report = scout.check(source, queries);
+        for (int retry = 0; report.failed() && retry < settings.fetchPolicy().requeues(); retry++) {
+            report = scout.check(source, queries);
+        }
+        return report;
     }
 
     @Override
     public void close() {
         scout.close();
+        transport.close();
     }
 }
@@ -0,0 +1,222 @@
+package de.cronoscx.contests.crawler.cluster;
+
+import de.cronoscx.contests.crawler.core.Assessor;
+import de.cronoscx.contests.crawler.core.Memory;
+import de.cronoscx.contests.crawler.core.Settings;
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite;
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite.Layout;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Cluster :: ClusterCrawler")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class ClusterCrawlerTest {
+    private static final Layout SITE = Layout.tree(4, 3).withCrossLinks(2);
+
+    @Test
+    void must_find_query_with_several_nodes() throws Exception {
+        try (final var site = new SyntheticSite(SITE)) {
+            // when
+            final var actual = dig(site, 3);
+
+            // then
+            assertThat(actual).allSatisfy(result -> assertThat(result).contains(site.target()));
+        }
+    }
+
+    @Test
+    void must_stop_all_nodes_once_every_page_was_checked_exactly_once() throws Exception {
+        try (final var site = new SyntheticSite(SITE.withTarget("/nowhere"))) {
+            // when
+            final var actual = dig(site, 3);
+
+            // then
+            assertThat(actual).allSatisfy(result -> assertThat(result).isEmpty());
+            assertThat(site.requests()).isEqualTo(SITE.pages());
+        }
+    }
+
+    @Test
+    void must_abort_all_nodes_once_a_node_went_away_before_it_was_done() throws Exception {
+        try (final var site = new SyntheticSite(SITE.withTarget("/nowhere"));
+             final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // given
+            final var first = topology(3, 0);
+            final List<ClusterCrawler> crawlers = new ArrayList<>();
+            for (int node = 0; node < 3; node++) {
+                crawlers.add(crawler(new Topology(node, first.nodes(), Partitioning.SOURCE)));
+            }
+            try {
+                // when: the last node never digs and goes away
+                final List<Future<Optional<URI>>> futures = new ArrayList<>();
+                for (final var crawler : crawlers.subList(0, 2)) {
+                    futures.add(executor.submit(() -> crawler.dig(site.root(), SyntheticSite.QUERY)));
+                }
+                Thread.sleep(200);
+                crawlers.get(2).close();
+
+                // then
+                for (final var future : futures) {
+                    assertThatThrownBy(() -> future.get(60, TimeUnit.SECONDS))
+                            .isInstanceOf(ExecutionException.class)
+                            .hasCauseInstanceOf(UncheckedIOException.class);
+                }
+            } finally {
+                crawlers.forEach(ClusterCrawler::close);
+            }
+        }
+    }
+
+    @Test
+    void must_abort_all_nodes_once_a_node_went_away_after_finding_one_of_several_queries() throws Exception {
+        try (final var site = new SyntheticSite(SITE);
+             final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // given
+            final var first = topology(3, 0);
+            final var queries = Set.of(SyntheticSite.QUERY, "nowhere to be found");
+            final List<ClusterCrawler> crawlers = new ArrayList<>();
+            for (int node = 0; node < 2; node++) {
+                crawlers.add(crawler(new Topology(node, first.nodes(), Partitioning.SOURCE)));
+            }
+            // the last node finds the first query and fails while still digging for the other one
+            final var probed = new CountDownLatch(1);
+            final var last = new Mesh(new Topology(2, first.nodes(), Partitioning.SOURCE), message -> {
+                if (message instanceof Message.Probe) {
+                    probed.countDown();
+                }
+            });
+            try {
+                // when
+                final List<Future<Map<String, URI>>> futures = new ArrayList<>();
+                for (final var crawler : crawlers) {
+                    futures.add(executor.submit(() -> crawler.dig(site.root(), queries)));
+                }
+                last.connect(Duration.ofSeconds(30));
+                last.broadcast(new Message.Found(SyntheticSite.QUERY, site.target()));
+                assertThat(probed.await(30, TimeUnit.SECONDS)).isTrue();
+                last.close();
+
+                // then
+                for (final var future : futures) {
+                    assertThatThrownBy(() -> future.get(60, TimeUnit.SECONDS))
+                            .isInstanceOf(ExecutionException.class)
+                            .hasCauseInstanceOf(UncheckedIOException.class);
+                }
+            } finally {
+                last.close();
+                crawlers.forEach(ClusterCrawler::close);
+            }
+        }
+    }
+
+    @Test
+    void must_find_query_with_nodes_in_separate_processes() throws Exception {
+        try (final var site = new SyntheticSite(SITE)) {
+            // given
+            final var topology = topology(3, 0);
+            final var addresses = topology.nodes().stream()
+                    .map(address -> address.getHostString() + ":" + address.getPort())
+                    .collect(Collectors.joining(","));
+            final var java = ProcessHandle.current().info().command().orElse("java");
+            final List<Process> processes = new ArrayList<>();
+            for (int node = 1; node < 3; node++) {
+                processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        ClusterStarter.class.getName(), String.valueOf(node), addresses, "SOURCE",
+                        SyntheticSite.QUERY, site.root().toString(), SyntheticSite.HOST_PATTERN)
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)
+                        .start());
+            }
+
+            try {
+                // when
+                final Optional<URI> actual;
+                try (final var underTest = crawler(topology)) {
+                    actual = underTest.dig(site.root(), SyntheticSite.QUERY);
+                }
+
+                // then
+                assertThat(actual).contains(site.target());
+                for (final var process : processes) {
+                    assertThat(process.waitFor(60, TimeUnit.SECONDS)).isTrue();
+                    final var output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                    assertThat(output.strip().lines().reduce((first, second) -> second))
+                            .contains(site.target().toString());
+                }
+            } finally {
+                processes.forEach(Process::destroyForcibly);
+            }
+        }
+    }
+
+    /**
+     * Digs the given site with the given number of nodes (within this JVM), returning the result of every node.
+     */
+    private static List<Optional<URI>> dig(SyntheticSite site, int nodes)
+            throws IOException, ExecutionException, InterruptedException {
+        final var first = topology(nodes, 0);
+        final List<ClusterCrawler> crawlers = new ArrayList<>();
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int node = 0; node < nodes; node++) {
+                crawlers.add(crawler(new Topology(node, first.nodes(), Partitioning.SOURCE)));
+            }
+            final List<Future<Optional<URI>>> futures = new ArrayList<>();
+            for (final var crawler : crawlers) {
+                futures.add(executor.submit(() -> crawler.dig(site.root(), SyntheticSite.QUERY)));
+            }
+            final List<Optional<URI>> result = new ArrayList<>();
+            for (final var future : futures) {
+                result.add(future.get(60, TimeUnit.SECONDS));
+            }
+            return result;
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("cluster did not stop", e);
+        } finally {
+            crawlers.forEach(ClusterCrawler::close);
+        }
+    }
+
+    private static ClusterCrawler crawler(Topology topology) throws IOException {
+        return new ClusterCrawler(new Memory(), new Assessor(SyntheticSite.HOST_PATTERN),
+                Settings.DEFAULT.withConcurrency(4), topology);
+    }
+
+    /**
+     * Creates a topology of the given number of nodes listening on free local ports.
+     */
+    private static Topology topology(int nodes, int self) throws IOException {
+        final List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int node = 0; node < nodes; node++) {
+            try (final var socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort()));
+            }
+        }
+        return new Topology(self, addresses, Partitioning.SOURCE);
+    }
+
+}
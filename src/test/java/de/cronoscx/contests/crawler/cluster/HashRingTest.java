@@ -0,0 +1,49 @@
+package de.cronoscx.contests.crawler.cluster;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Cluster :: HashRing")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class HashRingTest {
+    private static final int KEYS = 30_000;
+
+    @Test
+    void must_spread_keys_about_evenly() {
+        // given
+        final var underTest = new HashRing(3);
+
+        // when
+        final var counts = new int[3];
+        IntStream.range(0, KEYS).forEach(i -> counts[underTest.owner("http://my-site.com/" + i)]++);
+
+        // then
+        for (final var count : counts) {
+            assertThat(count).isBetween(KEYS / 3 * 8 / 10, KEYS / 3 * 12 / 10);
+        }
+    }
+
+    @Test
+    void must_only_move_keys_to_an_added_node() {
+        // given
+        final var before = new HashRing(3);
+        final var underTest = new HashRing(4);
+
+        // when
+        final var moved = IntStream.range(0, KEYS)
+                .mapToObj(i -> "http://my-site.com/" + i)
+                .filter(key -> before.owner(key) != underTest.owner(key))
+                .toList();
+
+        // then
+        assertThat(moved).allMatch(key -> underTest.owner(key) == 3);
+        assertThat(moved.size()).isBetween(KEYS / 4 * 8 / 10, KEYS / 4 * 12 / 10);
+    }
+
+}
@@ -0,0 +1,75 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Core :: Assessor")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class AssessorTest {
+    private final Assessor underTest = new Assessor();
+
+    @ParameterizedTest
+    @CsvSource({
+            "https://www.cronoscx.de/, true",
+            "https://www.cronoscx.de/services, true",
+            "https://www.cronoscx.de/index.html, true",
+            "https://www.cronoscx.de/v1.2/about, true",
+            "https://www.cronoscx.de/files/brochure.PDF, false",
+            "https://www.cronoscx.de/assets/logo.png, false",
+            "https://www.example.com/, false",
+    })
+    void must_only_consider_pages_of_matching_hosts_relevant(URI source, boolean expected) {
+        // when
+        final var actual = underTest.relevant(source);
+
+        // then
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void must_prefer_references_hinting_at_the_query() {
+        // given
+        final var queries = Set.of("Door-to-Door");
+        final var hinted = new Assessor.Link(URI.create("https://www.cronoscx.de/a/b"), "Door services", 2, null, -1);
+        final var plain = new Assessor.Link(URI.create("https://www.cronoscx.de/c"), "About us", 1, null, 0);
+        final var pathOnly = new Assessor.Link(URI.create("https://www.cronoscx.de/door-services"), "", 1, null, 0);
+
+        // when
+        final var actual = List.of(underTest.score(hinted, queries), underTest.score(plain, queries),
+                underTest.score(pathOnly, queries));
+
+        // then
+        assertThat(actual.get(0)).isGreaterThan(actual.get(1));
+        assertThat(actual.get(2)).isGreaterThan(actual.get(1));
+        assertThat(underTest.withScoring(Assessor.Scoring.BREADTH_FIRST).score(hinted, queries)).isEqualTo(-2);
+    }
+
+    @Test
+    void must_pass_on_relevance_to_the_references_of_promising_pages() {
+        // given
+        final var queries = Set.of("Door-to-Door");
+        final var parent = new Assessor.Link(URI.create("https://www.cronoscx.de/a"), "Door services", 1, null, 0);
+        final var parentScore = underTest.score(parent, queries);
+
+        // when
+        final var child = underTest.score(
+                new Assessor.Link(URI.create("https://www.cronoscx.de/a/x"), "", 2, null, parentScore), queries);
+        final var cousin = underTest.score(
+                new Assessor.Link(URI.create("https://www.cronoscx.de/b/x"), "", 2, null, -1), queries);
+
+        // then
+        assertThat(child).isGreaterThan(cousin);
+        assertThat(cousin).isEqualTo(-2);
+    }
+
+}
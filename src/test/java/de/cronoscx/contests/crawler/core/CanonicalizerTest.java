@@ -0,0 +1,102 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.net.URI;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Core :: Canonicalizer")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class CanonicalizerTest {
+    private final Canonicalizer underTest = new Canonicalizer();
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "http://my-site.com/a                       | http://my-site.com/a",
+            "HTTP://MY-SITE.com:80/a                    | http://my-site.com/a",
+            "https://my-site.com:443/a                  | https://my-site.com/a",
+            "http://my-site.com:8080/a                  | http://my-site.com:8080/a",
+            "http://my-site.com                         | http://my-site.com/",
+            "http://my-site.com/a/./                    | http://my-site.com/a/",
+            "http://my-site.com/a/../a                  | http://my-site.com/a",
+            "http://my-site.com/../a                    | http://my-site.com/a",
+            "http://my-site.com/a/b/..                  | http://my-site.com/a/",
+            "http://my-site.com/a#top                   | http://my-site.com/a",
+            "http://my-site.com/%c3%a4                  | http://my-site.com/%C3%A4",
+            "http://my-site.com/a;jsessionid=1234       | http://my-site.com/a",
+            "http://my-site.com/a?b=2&a=1&b=1           | http://my-site.com/a?a=1&b=2&b=1",
+            "http://my-site.com/a?utm_source=x&id=7     | http://my-site.com/a?id=7",
+            "http://my-site.com/a?fbclid=x              | http://my-site.com/a",
+            "http://my-site.com/a?                      | http://my-site.com/a",
+            "mailto:someone@my-site.com                 | mailto:someone@my-site.com",
+    }, delimiter = '|')
+    void must_canonicalize_spellings(URI source, URI expected) {
+        // given
+
+        // when
+        final var actual = underTest.canonical(source);
+
+        // then
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void must_strip_trailing_slashes_if_configured() {
+        // given
+        final var canonicalizer = new Canonicalizer(Canonicalizer.TrailingSlash.STRIP, Set.of());
+
+        // when
+        final var actual = canonicalizer.canonical(URI.create("http://my-site.com/a/?utm_source=x"));
+
+        // then
+        assertThat(actual).isEqualTo(URI.create("http://my-site.com/a?utm_source=x"));
+        assertThat(canonicalizer.canonical(URI.create("http://my-site.com/"))).isEqualTo(
+                URI.create("http://my-site.com/"));
+    }
+
+    @Test
+    void must_count_new_spellings_of_known_sources_as_saved_fetches() {
+        // given
+        final var spellings = Stream.of(
+                "http://my-site.com/a", "http://my-site.com/./a", "http://my-site.com:80/a", "http://my-site.com/a",
+                "http://my-site.com/b/../a", "http://my-site.com/b", "http://my-site.com/b#top"
+        ).map(URI::create).toList();
+
+        // when
+        final var actual = spellings.stream().map(underTest::canonicalize).distinct().toList();
+
+        // then
+        assertThat(actual).containsExactly(URI.create("http://my-site.com/a"), URI.create("http://my-site.com/b"));
+        assertThat(underTest.statistics()).isEqualTo("""
+                # references rewritten: 4
+                # redirects aliased: 0
+                # fetches saved by canonicalization: 4""");
+    }
+
+    @Test
+    void must_alias_redirect_targets() {
+        // given
+        underTest.canonicalize(URI.create("http://my-site.com/a"));
+
+        // when
+        final var actual = underTest.redirected(URI.create("http://my-site.com/a"),
+                URI.create("https://my-site.com:443/a"));
+        underTest.canonicalize(URI.create("https://my-site.com/a"));
+
+        // then
+        assertThat(actual).isEqualTo(URI.create("https://my-site.com/a"));
+        assertThat(underTest.statistics()).isEqualTo("""
+                # references rewritten: 0
+                # redirects aliased: 1
+                # fetches saved by canonicalization: 1""");
+    }
+
+}
@@ -0,0 +1,91 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Core :: FetchPolicy")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class FetchPolicyTest {
+    private final FetchPolicy underTest = new FetchPolicy(5, 0, Duration.ofMillis(100), Duration.ofMillis(300),
+            Duration.ofSeconds(1), 0.9);
+
+    @ParameterizedTest
+    @CsvSource({"1, 100", "2, 200", "3, 300", "4, 300", "64, 300"})
+    void must_bound_jittered_backoff(int retry, long bound) {
+        // given
+
+        // when
+        final var actual = IntStream.range(0, 1_000).mapToObj(i -> underTest.backoff(retry)).toList();
+
+        // then
+        assertThat(actual).allSatisfy(delay -> assertThat(delay)
+                .isBetween(Duration.ZERO, Duration.ofMillis(bound)));
+        assertThat(actual).anySatisfy(delay -> assertThat(delay).isGreaterThan(Duration.ofMillis(bound / 2)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, 10", "2, 20", "3, 40", "10, 60", "64, 60"})
+    void must_bound_large_backoffs_without_overflow(int retry, long bound) {
+        // given
+        final var policy = new FetchPolicy(64, 0, Duration.ofSeconds(10), Duration.ofSeconds(60),
+                Duration.ofSeconds(1), 0);
+
+        // when
+        final var actual = IntStream.range(0, 1_000).mapToObj(i -> policy.backoff(retry)).toList();
+
+        // then
+        assertThat(actual).allSatisfy(delay -> assertThat(delay)
+                .isBetween(Duration.ZERO, Duration.ofSeconds(bound)));
+        assertThat(actual).anySatisfy(delay -> assertThat(delay).isGreaterThan(Duration.ofSeconds(bound / 2)));
+    }
+
+    @Test
+    void must_not_back_off_without_retries() {
+        // given
+
+        // when
+        final var actual = FetchPolicy.NONE.backoff(1);
+
+        // then
+        assertThat(actual).isZero();
+        assertThat(FetchPolicy.NONE.hedging()).isFalse();
+        assertThat(underTest.hedging()).isTrue();
+    }
+
+    @Test
+    void must_retry_overloaded_servers_and_io_failures_only() {
+        // given
+
+        // when
+
+        // then
+        assertThat(FetchPolicy.retryable(429)).isTrue();
+        assertThat(FetchPolicy.retryable(503)).isTrue();
+        assertThat(FetchPolicy.retryable(404)).isFalse();
+        assertThat(FetchPolicy.retryable(500)).isFalse();
+        assertThat(FetchPolicy.retryable(new HttpTimeoutException("slow"))).isTrue();
+        assertThat(FetchPolicy.retryable(new IOException("reset"))).isTrue();
+        assertThat(FetchPolicy.retryable(new IllegalStateException())).isFalse();
+    }
+
+    @Test
+    void must_reject_invalid_policies() {
+        assertThatThrownBy(() -> new FetchPolicy(0, 0, Duration.ZERO, Duration.ZERO, Duration.ofSeconds(1), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FetchPolicy(1, 0, Duration.ZERO, Duration.ZERO, Duration.ofSeconds(1), 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,139 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Core :: Frontier")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class FrontierTest {
+    private final Frontier underTest = new Frontier();
+
+    @Test
+    void must_hand_out_lower_depths_first_and_keep_insertion_order_within_a_depth() {
+        // given
+        underTest.offer(URI.create("http://my-site.com/a/x"), 2);
+        underTest.offer(URI.create("http://my-site.com/b"), 1);
+        underTest.offer(URI.create("http://my-site.com/"), 0);
+        underTest.offer(URI.create("http://my-site.com/a"), 1);
+
+        // when
+        final List<URI> actual = new ArrayList<>();
+        while (!underTest.isEmpty()) {
+            actual.add(underTest.poll().orElseThrow().source());
+        }
+
+        // then
+        assertThat(actual).containsExactly(
+                URI.create("http://my-site.com/"),
+                URI.create("http://my-site.com/b"),
+                URI.create("http://my-site.com/a"),
+                URI.create("http://my-site.com/a/x")
+        );
+    }
+
+    @Test
+    void must_hand_out_higher_scores_first_and_keep_insertion_order_within_a_score() {
+        // given
+        underTest.offer(URI.create("http://my-site.com/a"), 1, -1);
+        underTest.offer(URI.create("http://my-site.com/b/c/d"), 3, 0.5);
+        underTest.offer(URI.create("http://my-site.com/b"), 1, -1);
+        underTest.offer(URI.create("http://my-site.com/b/c"), 2, 0.5);
+
+        // when
+        final List<Frontier.Entry> actual = new ArrayList<>();
+        while (!underTest.isEmpty()) {
+            actual.add(underTest.poll().orElseThrow());
+        }
+
+        // then
+        assertThat(actual).extracting(Frontier.Entry::source).containsExactly(
+                URI.create("http://my-site.com/b/c/d"),
+                URI.create("http://my-site.com/b/c"),
+                URI.create("http://my-site.com/a"),
+                URI.create("http://my-site.com/b")
+        );
+        assertThat(actual).extracting(Frontier.Entry::depth).containsExactly(3, 2, 1, 1);
+    }
+
+    @Test
+    void must_be_empty_after_all_entries_were_polled() {
+        // given
+        underTest.offer(URI.create("http://my-site.com/"), 0);
+
+        // when
+        underTest.poll();
+
+        // then
+        assertThat(underTest.isEmpty()).isTrue();
+        assertThat(underTest.poll()).isEmpty();
+    }
+
+    @Test
+    void must_keep_order_when_spilling_to_disk(@TempDir Path directory) {
+        // given
+        final List<URI> expected = new ArrayList<>();
+        try (final var spilling = new Frontier(directory, 10)) {
+            for (int i = 0; i < 5_000; i++) {
+                final var source = URI.create("http://my-site.com/" + i);
+                expected.add(source);
+                spilling.offer(source, 1);
+            }
+
+            // when
+            final List<URI> actual = new ArrayList<>();
+            for (int i = 0; i < 2_500; i++) {
+                actual.add(spilling.poll().orElseThrow().source());
+            }
+            for (int i = 5_000; i < 6_000; i++) {
+                final var source = URI.create("http://my-site.com/" + i);
+                expected.add(source);
+                spilling.offer(source, 1);
+            }
+            while (!spilling.isEmpty()) {
+                actual.add(spilling.poll().orElseThrow().source());
+            }
+
+            // then
+            assertThat(spilling.spilled()).isPositive();
+            assertThat(actual).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void must_bound_the_heap_across_score_buckets(@TempDir Path directory) {
+        // given
+        final var capacity = 100;
+        try (final var spilling = new Frontier(directory, capacity)) {
+            var maxHeap = 0;
+
+            // when
+            for (int i = 0; i < 20_000; i++) {
+                spilling.offer(URI.create("http://my-site.com/" + i), 1, (i % 1_000) / 16.0);
+                maxHeap = Math.max(maxHeap, spilling.onHeap());
+            }
+            final List<Frontier.Entry> actual = new ArrayList<>();
+            while (!spilling.isEmpty()) {
+                actual.add(spilling.poll().orElseThrow());
+                maxHeap = Math.max(maxHeap, spilling.onHeap());
+            }
+
+            // then
+            assertThat(maxHeap).isLessThanOrEqualTo(capacity + 1024 + 20);
+            assertThat(actual).hasSize(20_000);
+            assertThat(actual).isSortedAccordingTo(Comparator.comparingDouble(Frontier.Entry::score).reversed()
+                    .thenComparingLong(Frontier.Entry::sequence));
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Core :: HostScheduler")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class HostSchedulerTest {
+
+    @Test
+    void must_limit_requests_in_flight_per_host() {
+        // given
+        final var underTest = new HostScheduler(new HostScheduler.Limits(3, Duration.ZERO));
+        final var inFlight = new AtomicInteger();
+        final var maxInFlight = new LongAccumulator(Long::max, 0);
+        final var otherHost = new AtomicInteger();
+
+        // when
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                executor.submit(() -> underTest.run(URI.create("http://my-site.com/page"), () -> {
+                    maxInFlight.accumulate(inFlight.incrementAndGet());
+                    Thread.sleep(5);
+                    return inFlight.decrementAndGet();
+                }));
+                executor.submit(() -> underTest.run(URI.create("http://other-site.com/"), otherHost::incrementAndGet));
+            }
+        }
+
+        // then
+        assertThat(maxInFlight.get()).isEqualTo(3);
+        assertThat(otherHost).hasValue(50);
+    }
+
+    @Test
+    void must_raise_an_adaptive_limit_while_the_latency_stays_flat() {
+        // given
+        final var underTest = new HostScheduler(new HostScheduler.Limits(16, Duration.ZERO, true));
+        final var source = URI.create("http://my-site.com/page");
+        final var initial = underTest.limit(source);
+
+        // when
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 500; i++) {
+                executor.submit(() -> underTest.run(source, () -> {
+                    Thread.sleep(2);
+                    return null;
+                }));
+            }
+        }
+
+        // then
+        assertThat(initial).isEqualTo(4);
+        assertThat(underTest.limit(source)).isGreaterThan(initial).isLessThanOrEqualTo(16);
+        assertThat(underTest.concurrency()).isEqualTo(underTest.limit(source));
+    }
+
+    @Test
+    void must_back_off_on_overload_and_io_failures() throws Exception {
+        // given
+        final var underTest = new HostScheduler(new HostScheduler.Limits(16, Duration.ZERO, true));
+        final var overloaded = URI.create("http://my-site.com/");
+        final var timedOut = URI.create("http://other-site.com/");
+        final var refused = URI.create("http://third-site.com/");
+
+        // when
+        underTest.run(overloaded, () -> 503, status -> status == 503);
+        assertThatThrownBy(() -> underTest.run(timedOut, () -> {
+            throw new HttpTimeoutException("request timed out");
+        })).isInstanceOf(HttpTimeoutException.class);
+        assertThatThrownBy(() -> underTest.run(refused, () -> {
+            throw new ConnectException("connection refused");
+        })).isInstanceOf(ConnectException.class);
+
+        // then
+        assertThat(underTest.limit(overloaded)).isEqualTo(2);
+        assertThat(underTest.limit(timedOut)).isEqualTo(2);
+        assertThat(underTest.limit(refused)).isEqualTo(2);
+    }
+
+    @Test
+    void must_not_take_aborted_fetches_as_latency_samples() {
+        // given
+        final var underTest = new HostScheduler(new HostScheduler.Limits(16, Duration.ZERO, true));
+        final var source = URI.create("http://my-site.com/page");
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> underTest.run(source, () -> {
+                throw new CancellationException();
+            })).isInstanceOf(CancellationException.class);
+        }
+
+        // when
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 400; i++) {
+                executor.submit(() -> underTest.run(source, () -> {
+                    Thread.sleep(2);
+                    return null;
+                }));
+            }
+        }
+
+        // then
+        assertThat(underTest.limit(source)).isGreaterThan(4);
+    }
+
+    @Test
+    void must_space_request_starts_per_host() throws Exception {
+        // given
+        final var underTest = new HostScheduler(new HostScheduler.Limits(10, Duration.ofMillis(20)));
+        final var source = URI.create("http://my-site.com/");
+
+        // when
+        final var start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            underTest.run(source, () -> null);
+        }
+        final var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // then
+        assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+    }
+
+}
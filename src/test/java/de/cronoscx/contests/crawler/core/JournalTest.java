@@ -0,0 +1,128 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Core :: Journal")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class JournalTest {
+    private static final Scout.Report ROOT = new Scout.Report(URI.create("http://my-site.com/"), Set.of("query"),
+            Set.of(), List.of(URI.create("http://my-site.com/a"), URI.create("http://my-site.com/b")),
+            Map.of(URI.create("http://my-site.com/a"), "About us"), Map.of(), 42, null);
+    private static final Scout.Report PAGE = new Scout.Report(URI.create("http://my-site.com/a"), Set.of("query"),
+            Set.of("query"), List.of(), Map.of(), Map.of("query", "a query within"), 7, null);
+
+    @Test
+    void must_replay_all_records_after_reopening(@TempDir Path directory) throws IOException {
+        // given
+        final var path = directory.resolve("journal.log");
+        try (final var journal = new Journal(path)) {
+            journal.append(ROOT);
+        }
+        try (final var journal = new Journal(path)) {
+            journal.append(PAGE);
+        }
+
+        // when
+        final List<Scout.Report> actual = new ArrayList<>();
+        try (final var underTest = new Journal(path)) {
+            underTest.replay(actual::add);
+
+            // then
+            assertThat(underTest.records()).isEqualTo(2);
+        }
+        assertThat(actual).containsExactly(ROOT, PAGE);
+    }
+
+    @Test
+    void must_ignore_a_record_torn_by_a_crash(@TempDir Path directory) throws IOException {
+        // given
+        final var path = directory.resolve("journal.log");
+        try (final var journal = new Journal(path)) {
+            journal.append(ROOT);
+            journal.append(PAGE);
+        }
+        try (final var file = new RandomAccessFile(path.toFile(), "rw")) {
+            // simulate a crash before the length of the second record was written
+            file.seek(0);
+            final var end = Integer.BYTES + file.readInt();
+            file.seek(end);
+            file.writeInt(0);
+        }
+
+        // when
+        final List<Scout.Report> actual = new ArrayList<>();
+        try (final var underTest = new Journal(path)) {
+            underTest.replay(actual::add);
+        }
+
+        // then
+        assertThat(actual).containsExactly(ROOT);
+    }
+
+    @ParameterizedTest
+    // offsets within the second record: length of its source and count of its queries
+    @CsvSource({"5, -1", "5, 2147483647", "29, -1", "29, 2147483647"})
+    void must_ignore_a_record_with_corrupt_sizes(int offset, int size, @TempDir Path directory) throws IOException {
+        // given
+        final var path = directory.resolve("journal.log");
+        try (final var journal = new Journal(path)) {
+            journal.append(ROOT);
+            journal.append(PAGE);
+        }
+        try (final var file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(0);
+            final var end = Integer.BYTES + file.readInt();
+            file.seek(end + offset);
+            file.writeInt(size);
+        }
+
+        // when
+        final List<Scout.Report> actual = new ArrayList<>();
+        try (final var underTest = new Journal(path)) {
+            underTest.replay(actual::add);
+        }
+
+        // then
+        assertThat(actual).containsExactly(ROOT);
+    }
+
+    @Test
+    void must_restore_checked_and_pending_sources_into_memory(@TempDir Path directory) throws IOException {
+        // given
+        final var path = directory.resolve("journal.log");
+        try (final var memory = new Memory(Memory.Mode.FULL, new Journal(path))) {
+            memory.tryClaim(ROOT.source());
+            memory.findOrCall(ROOT.source(), source -> ROOT);
+        }
+
+        // when
+        try (final var underTest = new Memory(Memory.Mode.FULL, new Journal(path))) {
+
+            // then
+            assertThat(underTest.size()).isEqualTo(1);
+            assertThat(underTest.findOrCall(ROOT.source(), source -> null)).isEqualTo(ROOT);
+            assertThat(underTest.drainPending()).containsExactlyElementsOf(ROOT.references());
+            assertThat(underTest.drainPending()).isEmpty();
+            assertThat(underTest.tryClaim(URI.create("http://my-site.com/a"))).isFalse();
+            assertThat(underTest.match("query")).isEmpty();
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@DisplayName("Core :: Memory")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class MemoryTest {
+    private final Memory underTest = new Memory();
+
+    @Test
+    void must_grant_a_claim_only_once() {
+        // given
+        final var source = URI.create("http://my-site.com/");
+        underTest.tryClaim(source);
+
+        // when
+        final var actual = underTest.tryClaim(source);
+
+        // then
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    void must_grant_exactly_one_claim_per_source_to_many_virtual_threads() {
+        // given
+        final var sources = 1_000;
+        final var claims = new AtomicInteger();
+        final var calls = new AtomicInteger();
+
+        // when
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int thread = 0; thread < 10_000; thread++) {
+                final var offset = thread;
+                executor.submit(() -> {
+                    for (int index = 0; index < sources; index += 7) {
+                        final var source = URI.create("http://my-site.com/" + (index + offset) % sources);
+                        if (underTest.tryClaim(source)) {
+                            claims.incrementAndGet();
+                            underTest.findOrCall(source, uri -> {
+                                calls.incrementAndGet();
+                                return new Scout.Report(uri, "query", false, List.of(), 0);
+                            });
+                        }
+                    }
+                });
+            }
+        }
+
+        // then
+        assertThat(claims).hasValue(sources);
+        assertThat(calls).hasValue(sources);
+        assertThat(underTest.size()).isEqualTo(sources);
+    }
+
+    @Test
+    void must_count_memorized_reports_once_in_total_and_per_host() {
+        // given
+        final var first = URI.create("http://my-site.com/");
+        final var second = URI.create("http://other-site.com/");
+        final var references = List.of(URI.create("http://my-site.com/a"), URI.create("http://my-site.com/b"));
+
+        // when
+        underTest.findOrCall(first, uri -> new Scout.Report(uri, "query", false, references, 1_000));
+        underTest.findOrCall(first, uri -> new Scout.Report(uri, "query", false, references, 1_000));
+        underTest.findOrCall(second, uri -> new Scout.Report(uri, "query", false, List.of(), 234));
+
+        // then
+        assertThat(underTest.size()).isEqualTo(2);
+        assertThat(underTest.snapshot()).isEqualTo(new Memory.Snapshot(2, 2, 1_234));
+        assertThat(underTest.snapshotPerHost()).containsExactly(
+                entry("my-site.com", new Memory.Snapshot(1, 2, 1_000)),
+                entry("other-site.com", new Memory.Snapshot(1, 0, 234)));
+        assertThat(underTest.statistics()).isEqualTo("""
+                # sources: 2
+                # references: 2
+                # characters parsed: 1.234""");
+    }
+
+    @Nested
+    class Compact {
+        private final Memory underTest = new Memory(Memory.Mode.COMPACT);
+
+        @Test
+        void must_grant_a_claim_only_once() {
+            // given
+            final var source = URI.create("http://my-site.com/");
+            underTest.tryClaim(source);
+
+            // when
+            final var actual = underTest.tryClaim(source);
+
+            // then
+            assertThat(actual).isFalse();
+            assertThat(underTest.tryClaim(URI.create("http://my-site.com/a"))).isTrue();
+        }
+
+        @Test
+        void must_grant_exactly_one_claim_per_source_for_many_sources() {
+            // given
+            final var sources = 200_000;
+
+            // when
+            var claims = 0;
+            for (int round = 0; round < 2; round++) {
+                for (int index = 0; index < sources; index++) {
+                    if (underTest.tryClaim(URI.create("http://my-site.com/page/" + index))) {
+                        claims++;
+                    }
+                }
+            }
+
+            // then
+            assertThat(claims).isEqualTo(sources);
+        }
+
+        @Test
+        void must_keep_statistics_without_keeping_reports() {
+            // given
+            final var source = URI.create("http://my-site.com/");
+            final var report = new Scout.Report(source, "query", false,
+                    List.of(URI.create("http://my-site.com/a"), URI.create("http://my-site.com/b")), 1_234);
+
+            // when
+            underTest.findOrCall(source, uri -> report);
+
+            // then
+            assertThat(underTest.size()).isEqualTo(1);
+            assertThat(underTest.statistics()).isEqualTo("""
+                    # sources: 1
+                    # references: 2
+                    # characters parsed: 1.234""");
+        }
+    }
+
+}
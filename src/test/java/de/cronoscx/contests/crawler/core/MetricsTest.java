@@ -0,0 +1,148 @@
+package de.cronoscx.contests.crawler.core;
+
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+@DisplayName("Core :: Metrics")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class MetricsTest {
+
+    @Test
+    void must_approximate_percentiles_within_bucket_precision() {
+        // given
+        final var underTest = new Histogram();
+
+        // when
+        LongStream.rangeClosed(1, 100_000).forEach(underTest::record);
+
+        // then
+        final var summary = underTest.summary();
+        assertThat(summary.count()).isEqualTo(100_000);
+        assertThat(summary.mean()).isEqualTo(50_000);
+        assertThat(summary.max()).isEqualTo(100_000);
+        assertThat(summary.p50()).isCloseTo(50_000L, withinPercentage(12.5));
+        assertThat(summary.p99()).isCloseTo(99_000L, withinPercentage(12.5));
+    }
+
+    @Test
+    void must_map_every_value_into_a_bucket_bounding_it() {
+        for (final var value : new long[]{0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            // when
+            final var index = Histogram.index(value);
+
+            // then
+            assertThat(Histogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+            assertThat(index == 0 || Histogram.upperBound(index - 1) < value).isTrue();
+        }
+    }
+
+    @Test
+    void must_record_phases_and_failures_of_checks() throws IOException {
+        // given
+        final var underTest = new Metrics();
+        try (final var site = new SyntheticSite(SyntheticSite.Layout.tree(2, 1).withMissing(1));
+             final var transport = new Transport(Settings.DEFAULT)) {
+            final var scout = new Scout(new Memory(), new HostScheduler(Settings.DEFAULT.hostLimits()), transport,
+                    underTest);
+
+            // when
+            final var references = scout.check(site.root(), SyntheticSite.QUERY).references();
+            references.forEach(reference -> scout.check(reference, SyntheticSite.QUERY));
+            underTest.claimed(true);
+            underTest.claimed(false);
+        }
+
+        // then
+        final var snapshot = underTest.snapshot();
+        assertThat(snapshot.pages()).isEqualTo(4); // root, 2 children, 1 missing page
+        assertThat(snapshot.bytes()).isPositive();
+        assertThat(snapshot.inFlight()).isZero();
+        assertThat(snapshot.failures()).containsEntry(Metrics.Cause.STATUS, 1L);
+        assertThat(snapshot.latencies().get(Metrics.Phase.TTFB).count()).isEqualTo(4);
+        assertThat(snapshot.latencies().get(Metrics.Phase.PARSE).count()).isEqualTo(3);
+        assertThat(snapshot.duplicateRatio()).isEqualTo(0.5);
+        assertThat(underTest.statistics()).contains("# pages: 4", "# failures: [STATUS=1]", "# ttfb: avg.");
+    }
+
+    @Test
+    void must_provide_percentiles_of_the_total_fetch_time_once_enough_fetches_completed() throws Exception {
+        // given
+        final var underTest = new Metrics();
+        final var source = URI.create("http://my-site.com/");
+
+        // when
+        for (int i = 0; i < 32; i++) {
+            assertThat(underTest.latency(0.5)).isEmpty();
+            final var fetch = underTest.start(source);
+            fetch.started();
+            if (i % 3 == 0) {
+                Thread.sleep(20); // slow first byte
+            }
+            fetch.responded(200);
+            if (i % 3 == 1) {
+                Thread.sleep(20); // slow body
+            }
+            fetch.received(100);
+            fetch.completed(false, 0);
+        }
+
+        // then: most fetches took 20 ms, although neither phase did in most fetches
+        final var phases = underTest.snapshot().latencies();
+        assertThat(phases.get(Metrics.Phase.TTFB).p50() + phases.get(Metrics.Phase.BODY).p50())
+                .isLessThan(Duration.ofMillis(10).toNanos());
+        assertThat(underTest.latency(0.5)).hasValueSatisfying(latency ->
+                assertThat(latency).isGreaterThan(Duration.ofMillis(17)));
+    }
+
+    @Test
+    void must_classify_failures_by_cause() {
+        assertThat(Metrics.Cause.of(new HttpTimeoutException("timeout"))).isEqualTo(Metrics.Cause.TIMEOUT);
+        assertThat(Metrics.Cause.of(new IOException("reset"))).isEqualTo(Metrics.Cause.IO);
+        assertThat(Metrics.Cause.of(new InterruptedException())).isEqualTo(Metrics.Cause.CANCELLED);
+        assertThat(Metrics.Cause.of(new IllegalStateException())).isEqualTo(Metrics.Cause.OTHER);
+    }
+
+    @Test
+    void must_emit_flight_recorder_events_while_recording(@TempDir Path directory) throws IOException {
+        // given
+        final var dump = directory.resolve("crawl.jfr");
+        try (final var site = new SyntheticSite(2, 1);
+             final var scout = new Scout(new Memory());
+             final var recording = new Recording()) {
+            recording.enable(FetchEvent.NAME);
+            recording.start();
+
+            // when
+            scout.check(site.root(), SyntheticSite.QUERY);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        // then
+        final var events = RecordingFile.readAllEvents(dump).stream()
+                .filter(event -> event.getEventType().getName().equals(FetchEvent.NAME))
+                .toList();
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.getString("outcome")).isEqualTo("OK");
+            assertThat(event.getInt("references")).isEqualTo(3); // 2 children and home
+            assertThat(event.getLong("bytes")).isPositive();
+        });
+    }
+
+}
@@ -0,0 +1,179 @@
+package de.cronoscx.contests.crawler.core;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Flow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@DisplayName("Core :: PageScanner")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class PageScannerTest {
+
+    @Test
+    void must_find_query_spanning_several_chunks() {
+        // given
+        final var underTest = new PageScanner("Door-to-Door");
+
+        // when
+        final var first = underTest.feed("<p>Door-to-Do");
+        final var second = underTest.feed("or delivery</p>");
+
+        // then
+        assertThat(first).isFalse();
+        assertThat(second).isTrue();
+        assertThat(underTest.found()).isTrue();
+        assertThat(underTest.hrefs()).isEmpty();
+    }
+
+    @Test
+    void must_not_be_confused_by_partial_matches() {
+        // given
+        final var underTest = new PageScanner("aab");
+
+        // when
+        final var actual = underTest.feed("aaab");
+
+        // then
+        assertThat(actual).isTrue();
+    }
+
+    @Test
+    void must_find_overlapping_queries_within_a_single_pass() {
+        // given
+        final var underTest = new PageScanner(Set.of("he", "she", "his", "hers", "Größe"));
+
+        // when
+        final var first = underTest.feed("<p>ushe");
+        final var second = underTest.feed("rs of Grö");
+        final var third = underTest.feed("ße</p>");
+
+        // then
+        assertThat(first).isFalse();
+        assertThat(second).isFalse();
+        assertThat(third).isFalse();
+        assertThat(underTest.found()).isFalse();
+        assertThat(underTest.matches()).containsExactly("Größe", "he", "hers", "she");
+    }
+
+    @Test
+    void must_keep_the_text_around_matches_as_evidence() {
+        // given
+        final var underTest = new PageScanner(Set.of("Door-to-Door", "delivery", "nowhere"));
+
+        // when
+        underTest.feed("<p>Fast Door-to-Door\n\n  delivery</p>");
+
+        // then
+        assertThat(underTest.evidence()).containsExactly(
+                entry("Door-to-Door", "<p>Fast Door-to-Door delivery</p>"),
+                entry("delivery", "<p>Fast Door-to-Door delivery</p>"));
+    }
+
+    @Test
+    void must_keep_collecting_links_until_all_queries_were_found() {
+        // given
+        final var underTest = new PageScanner(Set.of("first", "second"));
+
+        // when
+        final var partially = underTest.feed("<p>first</p><a href=\"/a\">a</a>");
+        final var entirely = underTest.feed("<p>second</p><a href=\"/b\">b</a>");
+
+        // then
+        assertThat(partially).isFalse();
+        assertThat(entirely).isTrue();
+        assertThat(underTest.matches()).containsExactly("first", "second");
+        assertThat(underTest.hrefs()).isEmpty();
+    }
+
+    @Test
+    void must_extract_links_spanning_several_chunks() {
+        // given
+        final var underTest = new PageScanner("missing");
+
+        // when
+        underTest.feed("<html><head><base hr");
+        underTest.feed("ef=\"/x/\"></head><body><a class=\"nav\" hr");
+        underTest.feed("ef=\"impressum\">Impressum</a><a href=\"mailto:me@my-site.com\">Mail</a><a hr");
+        underTest.feed("ef=\"/about\">");
+        underTest.finish();
+
+        // then
+        assertThat(underTest.found()).isFalse();
+        assertThat(underTest.baseHref()).contains("/x/");
+        assertThat(underTest.hrefs()).containsExactly("impressum", "mailto:me@my-site.com", "/about");
+    }
+
+    @Test
+    void must_extract_the_text_of_hyperlinks() {
+        // given
+        final var underTest = new PageScanner("missing");
+
+        // when
+        underTest.feed("<a href=\"/services\">\n  Our <b>door</b>\n  services </a>");
+        underTest.feed("<a href=\"/empty\"><img src=\"logo.png\"></a><a href=\"/long\">" + "x".repeat(100));
+        underTest.feed("</a><a href=\"/unclosed\">Home");
+        underTest.finish();
+
+        // then
+        assertThat(underTest.hrefs()).containsExactly("/services", "/empty", "/long", "/unclosed");
+        assertThat(underTest.texts()).containsExactly("Our door services", "", "x".repeat(64), "Home");
+    }
+
+    @Test
+    void must_keep_filtering_semantics_of_hyperlinks() {
+        // given
+        final var underTest = new PageScanner("missing");
+
+        // when
+        underTest.feed("""
+                <A HREF="/upper">upper case</A>
+                <a title="a > b" href="/quoted">quoted angle bracket</a>
+                <a data-href="/data" href='/single'>no double quotes</a>
+                <a href="/search?q=x">query</a>
+                <a href="/page#part">fragment</a>
+                <a href="#top">anchor</a>
+                <a href="/a b">whitespace</a>
+                <a href="">empty</a>
+                <abbr href="/abbr">no hyperlink</abbr>
+                """);
+        underTest.finish();
+
+        // then
+        assertThat(underTest.hrefs()).containsExactly("/upper", "/quoted", "/search?q=x", "/page#part");
+    }
+
+    @Test
+    void must_stop_reading_at_the_body_size_limit() {
+        // given
+        final var body = "<a href=\"/a\">a</a>" + "x".repeat(1_000) + "<a href=\"/b\">b</a>";
+        final var underTest = PageScanner.subscriber(Set.of("query"), StandardCharsets.UTF_8, null, 100);
+        underTest.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+
+        // when
+        underTest.onNext(List.of(ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8))));
+
+        // then
+        final var actual = underTest.getBody().toCompletableFuture().join();
+        assertThat(actual.truncated()).isTrue();
+        assertThat(actual.bytes()).isEqualTo(100);
+        assertThat(actual.hrefs()).containsExactly("/a");
+    }
+
+}
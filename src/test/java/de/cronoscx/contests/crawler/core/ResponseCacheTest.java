@@ -0,0 +1,115 @@
+package de.cronoscx.contests.crawler.core;
+
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Core :: ResponseCache")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class ResponseCacheTest {
+
+    private static ResponseCache.Entry entry(String source, int size) {
+        return new ResponseCache.Entry(URI.create(source), "text/html", "\"etag\"", null, 0, true, new byte[size]);
+    }
+
+    @Test
+    void must_keep_entries_across_instances(@TempDir Path directory) throws IOException {
+        // given
+        final var entry = entry("http://my-site.com/", 100);
+        new ResponseCache(directory, 10_000).store(entry);
+
+        // when
+        final var actual = new ResponseCache(directory, 10_000).lookup(entry.source());
+
+        // then
+        assertThat(actual).hasValueSatisfying(value -> {
+            assertThat(value.etag()).isEqualTo("\"etag\"");
+            assertThat(value.body()).hasSize(100);
+        });
+    }
+
+    @Test
+    void must_evict_least_recently_used_entries(@TempDir Path directory) throws IOException {
+        // given
+        final var underTest = new ResponseCache(directory, 2_500);
+        underTest.store(entry("http://my-site.com/a", 1_000));
+        underTest.store(entry("http://my-site.com/b", 1_000));
+        underTest.lookup(URI.create("http://my-site.com/a"));
+
+        // when
+        underTest.store(entry("http://my-site.com/c", 1_000));
+
+        // then
+        assertThat(underTest.lookup(URI.create("http://my-site.com/a"))).isPresent();
+        assertThat(underTest.lookup(URI.create("http://my-site.com/b"))).isEmpty();
+        assertThat(underTest.lookup(URI.create("http://my-site.com/c"))).isPresent();
+        assertThat(underTest.statistics()).contains("1 evicted");
+    }
+
+    @Test
+    void must_serve_fresh_entries_without_request(@TempDir Path directory) throws Exception {
+        // given
+        try (final var site = new SyntheticSite(2, 1)) {
+            final var cache = new ResponseCache(directory, 10_000);
+            final var body = "<a href=\"/0\">x</a> %s".formatted(SyntheticSite.QUERY).getBytes(StandardCharsets.UTF_8);
+            cache.store(new ResponseCache.Entry(site.root(), "text/html; charset=utf-8", null, null,
+                    System.currentTimeMillis() + 60_000, true, body));
+
+            try (final var underTest = new Transport(Settings.DEFAULT, cache)) {
+                // when
+                final var actual = underTest.scan(site.root(), Set.of(SyntheticSite.QUERY), status -> {});
+
+                // then
+                assertThat(actual.scan().found()).isTrue();
+                assertThat(site.requests()).isZero();
+                assertThat(cache.count(ResponseCache.Outcome.FRESH)).isEqualTo(1);
+            }
+        }
+    }
+
+    @Test
+    void must_revalidate_incomplete_bodies_only_for_the_query_they_contain(@TempDir Path directory) throws Exception {
+        // given
+        try (final var site = new SyntheticSite(SyntheticSite.Layout.tree(2, 1).withValidators().withTarget("/"));
+             final var underTest = new Transport(Settings.DEFAULT, new ResponseCache(directory, 100_000))) {
+            underTest.scan(site.root(), Set.of(SyntheticSite.QUERY), status -> {});
+
+            // when
+            final var same = underTest.scan(site.root(), Set.of(SyntheticSite.QUERY), status -> {});
+            final var other = underTest.scan(site.root(), Set.of("elsewhere"), status -> {});
+
+            // then
+            assertThat(same.scan().found()).isTrue();
+            assertThat(other.scan().found()).isFalse();
+            assertThat(site.notModified()).isEqualTo(2);
+            assertThat(site.requests()).isEqualTo(4); // the incomplete body required a full download
+        }
+    }
+
+    @Test
+    void must_derive_expiry_from_cache_control() {
+        assertThat(Transport.expires(headers("no-store"))).isEqualTo(-1);
+        assertThat(Transport.expires(headers("no-cache, max-age=60"))).isZero();
+        assertThat(Transport.expires(headers("public, max-age=60")))
+                .isBetween(System.currentTimeMillis() + 59_000, System.currentTimeMillis() + 60_000);
+    }
+
+    private static HttpHeaders headers(String cacheControl) {
+        return HttpHeaders.of(Map.of("cache-control", List.of(cacheControl)), (name, value) -> true);
+    }
+
+}
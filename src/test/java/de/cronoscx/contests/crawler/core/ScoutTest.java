@@ -1,34 +1,32 @@
 package de.cronoscx.contests.crawler.core;
 
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite;
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite.Layout;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
-import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
 import java.net.URI;
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
 
-@Disabled
 @DisplayName("Core :: Scout")
 @DisplayNameGeneration(ReplaceUnderscores.class)
-@ExtendWith(MockitoExtension.class)
 class ScoutTest {
-    @Mock
-    private Assessor assessor;
-    @InjectMocks
     private Scout underTest;
 
     @BeforeEach
     void beforeEach() {
-        when(assessor.relevant(any(URI.class))).thenReturn(true);
+        underTest = new Scout(new Memory());
+    }
+
+    @AfterEach
+    void afterEach() {
+        underTest.close();
     }
 
     @Nested
@@ -74,7 +72,7 @@ class ScoutTest {
             // given
 
             // when
-            final var actual = underTest.parse(href, source, Optional.empty());
+            final var actual = underTest.parse(href, source, Optional.of(baseHref));
 
             // then
             assertThat(actual).isEqualTo(expected);
@@ -83,4 +81,174 @@ class ScoutTest {
 
     }
 
-}
\ No newline at end of file
+    @Nested
+    class Check {
+
+        @Test
+        void must_find_query_on_target_page() throws IOException {
+            try (final var site = new SyntheticSite(3, 2)) {
+                // given
+                final var source = site.target();
+
+                // when
+                final var actual = underTest.check(source, SyntheticSite.QUERY);
+
+                // then
+                assertThat(actual.found()).isTrue();
+                assertThat(actual.references()).isEmpty();
+            }
+        }
+
+        @Test
+        void must_collect_references_of_other_pages() throws IOException {
+            try (final var site = new SyntheticSite(3, 2)) {
+                // given
+                final var source = site.root().resolve("/1");
+
+                // when
+                final var actual = underTest.check(source, SyntheticSite.QUERY);
+
+                // then
+                assertThat(actual.found()).isFalse();
+                assertThat(actual.references()).containsExactlyInAnyOrder(
+                        site.root(),
+                        site.root().resolve("/1/0"),
+                        site.root().resolve("/1/1"),
+                        site.root().resolve("/1/2")
+                );
+            }
+        }
+
+        @Test
+        void must_canonicalize_references_before_they_are_claimed() throws IOException {
+            final var memory = new Memory();
+            final var canonicalizer = new Canonicalizer();
+            try (final var site = new SyntheticSite(2, 2);
+                 final var transport = new Transport(Settings.DEFAULT);
+                 final var scout = new Scout(memory, new HostScheduler(Settings.DEFAULT.hostLimits()), transport,
+                         new Metrics(), canonicalizer)) {
+                // given
+                final var source = site.root().resolve("/0/1");
+                memory.tryClaim(canonicalizer.canonicalize(site.root()));
+
+                // when
+                final var actual = scout.check(source, SyntheticSite.QUERY);
+
+                // then
+                assertThat(site.root().resolve(SyntheticSite.HOME).getRawQuery()).isNotNull();
+                assertThat(actual.references()).containsExactly(site.root());
+                assertThat(memory.tryClaim(actual.references().getFirst())).isFalse();
+                assertThat(canonicalizer.statistics()).contains(
+                        "# references rewritten: 1", "# fetches saved by canonicalization: 1");
+            }
+        }
+
+        @Test
+        void must_resolve_references_against_base_href() throws IOException {
+            try (final var site = new SyntheticSite(Layout.tree(2, 2).withBaseHref())) {
+                // given
+                final var source = site.root().resolve("/1");
+
+                // when
+                final var actual = underTest.check(source, SyntheticSite.QUERY);
+
+                // then
+                assertThat(actual.references()).containsExactlyInAnyOrder(
+                        site.root(),
+                        site.root().resolve("/1/0"),
+                        site.root().resolve("/1/1")
+                );
+            }
+        }
+
+        @Test
+        void must_follow_redirects() throws IOException {
+            try (final var site = new SyntheticSite(Layout.tree(2, 1).withRedirects(1))) {
+                // given
+                final var source = site.root().resolve("/redirect/1");
+
+                // when
+                final var actual = underTest.check(source, SyntheticSite.QUERY);
+
+                // then
+                assertThat(actual.found()).isTrue();
+            }
+        }
+
+        @Test
+        void must_ignore_missing_pages() throws IOException {
+            try (final var site = new SyntheticSite(2, 1)) {
+                // given
+                final var source = site.root().resolve("/missing/1");
+
+                // when
+                final var actual = underTest.check(source, SyntheticSite.QUERY);
+
+                // then
+                assertThat(actual.found()).isFalse();
+                assertThat(actual.references()).isEmpty();
+            }
+        }
+
+        @Test
+        void must_ignore_non_html_resources() throws IOException {
+            try (final var site = new SyntheticSite(2, 1)) {
+                // given
+                final var source = site.root().resolve("/files/1.pdf");
+
+                // when
+                final var actual = underTest.check(source, SyntheticSite.QUERY);
+
+                // then
+                assertThat(actual.found()).isFalse();
+                assertThat(actual.references()).isEmpty();
+            }
+        }
+
+        @Test
+        void must_memorize_reports() throws IOException {
+            try (final var site = new SyntheticSite(2, 1)) {
+                // given
+                final var source = site.root();
+                underTest.check(source, SyntheticSite.QUERY);
+
+                // when
+                final var actual = underTest.check(source, SyntheticSite.QUERY);
+
+                // then
+                assertThat(actual.references()).hasSize(3);
+                assertThat(site.requests()).isEqualTo(1);
+            }
+        }
+
+        @Test
+        void must_retry_timed_out_fetches_without_memorizing_the_failure() throws IOException {
+            final var layout = Layout.tree(2, 1).withSlow(1, Duration.ofSeconds(2));
+            final var policy = new FetchPolicy(3, 0, Duration.ofMillis(10), Duration.ofMillis(50),
+                    Duration.ofSeconds(30), 0);
+            final var settings = Settings.DEFAULT.withTimeout(Duration.ofMillis(100)).withFetchPolicy(policy);
+            final var memory = new Memory();
+            final var metrics = new Metrics();
+            try (final var site = new SyntheticSite(layout);
+                 final var transport = new Transport(settings);
+                 final var scout = new Scout(memory, new HostScheduler(settings.hostLimits()), transport, metrics)) {
+                // given
+                final var source = site.root();
+                memory.tryClaim(source);
+
+                // when
+                final var actual = scout.check(source, SyntheticSite.QUERY);
+
+                // then
+                assertThat(actual.failure()).isEqualTo(Metrics.Cause.TIMEOUT);
+                assertThat(site.requests()).isEqualTo(3);
+                assertThat(metrics.snapshot().retries()).isEqualTo(2);
+                assertThat(metrics.snapshot().failures()).containsEntry(Metrics.Cause.TIMEOUT, 1L);
+                assertThat(memory.size()).isZero();
+                assertThat(memory.tryClaim(source)).isFalse(); // left to the crawler owning the claim
+            }
+        }
+
+    }
+
+}
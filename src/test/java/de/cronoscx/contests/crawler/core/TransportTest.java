@@ -0,0 +1,88 @@
+package de.cronoscx.contests.crawler.core;
+
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Core :: Transport")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class TransportTest {
+
+    @Test
+    void must_share_one_client_between_scout_and_assessor() throws IOException {
+        // given
+        try (final var site = new SyntheticSite(2, 1);
+             final var underTest = new Transport(Settings.DEFAULT)) {
+            final var scout = new Scout(new Memory(), new HostScheduler(Settings.DEFAULT.hostLimits()), underTest,
+                    new Metrics());
+
+            // when
+            final var report = scout.check(site.root(), SyntheticSite.QUERY);
+            final var verified = new Assessor().ok(site.target(), SyntheticSite.QUERY, underTest);
+            scout.close();
+
+            // then
+            assertThat(report.references()).isNotEmpty();
+            assertThat(verified).isTrue();
+            assertThat(underTest.statistics())
+                    .contains("# responses: 2")
+                    .contains("# origins: 1");
+        }
+    }
+
+    @Test
+    void must_fall_back_to_http_1_1_if_server_does_not_support_http_2() throws Exception {
+        // given
+        try (final var site = new SyntheticSite(2, 1);
+             final var underTest = new Transport(Settings.DEFAULT.withHttpVersion(HttpClient.Version.HTTP_2))) {
+
+            // when
+            final var response = underTest.send(underTest.get(site.root()),
+                    info -> PageScanner.subscriber(Set.of(SyntheticSite.QUERY), PageScanner.charset(info.headers())));
+
+            // then
+            assertThat(response.version()).isEqualTo(HttpClient.Version.HTTP_1_1);
+            assertThat(underTest.statistics()).contains("HTTP/1.1: 1");
+        }
+    }
+
+    @Test
+    void must_not_read_bodies_of_non_html_resources() throws Exception {
+        // given
+        try (final var site = new SyntheticSite(SyntheticSite.Layout.tree(2, 1).withNonHtml(1));
+             final var underTest = new Transport(Settings.DEFAULT)) {
+
+            // when
+            final var actual = underTest.scan(site.root().resolve("/files/1.pdf"), Set.of(SyntheticSite.QUERY),
+                    status -> {});
+
+            // then
+            assertThat(actual.rejection()).isEqualTo(Metrics.Cause.CONTENT_TYPE);
+            assertThat(actual.scan().bytes()).isZero();
+        }
+    }
+
+    @Test
+    void must_reject_bodies_declared_larger_than_the_limit() throws Exception {
+        // given
+        try (final var site = new SyntheticSite(2, 1);
+             final var underTest = new Transport(Settings.DEFAULT.withMaxBodySize(100))) {
+
+            // when
+            final var actual = underTest.scan(site.root(), Set.of(SyntheticSite.QUERY), status -> {});
+
+            // then
+            assertThat(actual.rejection()).isEqualTo(Metrics.Cause.TOO_LARGE);
+            assertThat(actual.scan().bytes()).isZero();
+        }
+    }
+
+}
@@ -0,0 +1,373 @@
+package de.cronoscx.contests.crawler.fixtures;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local website for reproducible crawls served by an embedded {@link HttpServer}. Pages are generated on the fly (no
+ * state per page), so sites with hundreds of thousands of pages are cheap.
+ * <p>
+ * The site is a complete tree: every page at a level below {@link Layout#depth()} links to {@link Layout#fanOut()}
+ * children, addressed by their child indices (e.g. {@code /3/0/7}). Depending on the {@link Layout}, pages
+ * additionally link to random other pages (cycles), to non-HTML resources, to missing pages or to their children via
+ * redirects; pages may declare a base href and respond slowly. All decisions are derived from the page path and the
+ * seed, so the same layout always produces the same site. Every page links back to the root page by {@link #HOME}.
+ */
+public final class SyntheticSite implements AutoCloseable {
+    public static final String QUERY = "Door-to-Door";
+    // shares a term with the query without matching it
+    public static final String HINT = "door services";
+    public static final String HOST_PATTERN = "127\\.0\\.0\\.1";
+    // spelling of the root page in the links back to it
+    public static final String HOME = "/?utm_source=nav#top";
+
+    private static final String FILES = "/files/";
+    private static final String MISSING = "/missing/";
+    private static final String REDIRECT = "/redirect";
+
+    private final Layout layout;
+    private final String target;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    // number of requests per path still to be answered with 503
+    private final ConcurrentMap<String, AtomicInteger> outages = new ConcurrentHashMap<>();
+
+    /**
+     * Describes the shape of a site.
+     *
+     * @param fanOut     number of children per page
+     * @param depth      number of levels below the root page
+     * @param crossLinks number of additional links per page to random pages of the site (creates cycles)
+     * @param baseHref   should pages declare a base href and link their children relatively?
+     * @param nonHtml    share of pages linking to a non-HTML resource
+     * @param missing    share of pages linking to a page that does not exist (404)
+     * @param redirects  share of child links that are served via a redirect (301)
+     * @param slow       share of pages responding with the given delay
+     * @param delay      response delay of slow pages
+     * @param target     path of the page containing the query; {@code null} for the last leaf
+     * @param seed       source of all random decisions
+     * @param validators should pages carry an {@code ETag} (and answer matching conditional requests with 304)?
+     * @param hints      should the links leading to the target carry a hint on the query in their text?
+     * @param decoys     share of the other child links carrying the same hint
+     */
+    public record Layout(int fanOut,
+                         int depth,
+                         int crossLinks,
+                         boolean baseHref,
+                         double nonHtml,
+                         double missing,
+                         double redirects,
+                         double slow,
+                         Duration delay,
+                         String target,
+                         long seed,
+                         boolean validators,
+                         boolean hints,
+                         double decoys) {
+
+        /**
+         * A plain tree without any distractions
+         */
+        public static Layout tree(int fanOut, int depth) {
+            return new Layout(fanOut, depth, 0, false, 0, 0, 0, 0, Duration.ZERO, null, 42, false, false, 0);
+        }
+
+        public Layout withCrossLinks(int crossLinks) {
+            return new Layout(fanOut, depth, crossLinks, baseHref, nonHtml, missing, redirects, slow, delay, target,
+                    seed, validators, hints, decoys);
+        }
+
+        public Layout withBaseHref() {
+            return new Layout(fanOut, depth, crossLinks, true, nonHtml, missing, redirects, slow, delay, target, seed,
+                    validators, hints, decoys);
+        }
+
+        public Layout withNonHtml(double nonHtml) {
+            return new Layout(fanOut, depth, crossLinks, baseHref, nonHtml, missing, redirects, slow, delay, target,
+                    seed, validators, hints, decoys);
+        }
+
+        public Layout withMissing(double missing) {
+            return new Layout(fanOut, depth, crossLinks, baseHref, nonHtml, missing, redirects, slow, delay, target,
+                    seed, validators, hints, decoys);
+        }
+
+        public Layout withRedirects(double redirects) {
+            return new Layout(fanOut, depth, crossLinks, baseHref, nonHtml, missing, redirects, slow, delay, target,
+                    seed, validators, hints, decoys);
+        }
+
+        public Layout withSlow(double slow, Duration delay) {
+            return new Layout(fanOut, depth, crossLinks, baseHref, nonHtml, missing, redirects, slow, delay, target,
+                    seed, validators, hints, decoys);
+        }
+
+        public Layout withTarget(String target) {
+            return new Layout(fanOut, depth, crossLinks, baseHref, nonHtml, missing, redirects, slow, delay, target,
+                    seed, validators, hints, decoys);
+        }
+
+        public Layout withSeed(long seed) {
+            return new Layout(fanOut, depth, crossLinks, baseHref, nonHtml, missing, redirects, slow, delay, target,
+                    seed, validators, hints, decoys);
+        }
+
+        public Layout withValidators() {
+            return new Layout(fanOut, depth, crossLinks, baseHref, nonHtml, missing, redirects, slow, delay, target,
+                    seed, true, hints, decoys);
+        }
+
+        public Layout withHints(double decoys) {
+            return new Layout(fanOut, depth, crossLinks, baseHref, nonHtml, missing, redirects, slow, delay, target,
+                    seed, validators, true, decoys);
+        }
+
+        /**
+         * Represents the number of (HTML) pages of the tree
+         */
+        public long pages() {
+            long result = 1;
+            long level = 1;
+            for (int i = 0; i < depth; i++) {
+                level *= fanOut;
+                result += level;
+            }
+            return result;
+        }
+    }
+
+    public SyntheticSite(int fanOut, int depth) throws IOException {
+        this(Layout.tree(fanOut, depth));
+    }
+
+    public SyntheticSite(Layout layout) throws IOException {
+        this.layout = layout;
+        this.target = layout.target() != null ? layout.target() : lastLeaf(layout);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    private static String lastLeaf(Layout layout) {
+        final var path = new StringBuilder();
+        for (int level = 0; level < layout.depth(); level++) {
+            path.append('/').append(layout.fanOut() - 1);
+        }
+        return path.isEmpty() ? "/" : path.toString();
+    }
+
+    public Layout layout() {
+        return layout;
+    }
+
+    /**
+     * The root page of the site
+     */
+    public URI root() {
+        return URI.create("http://127.0.0.1:%d/".formatted(server.getAddress().getPort()));
+    }
+
+    /**
+     * The page containing the query
+     */
+    public URI target() {
+        return root().resolve(target);
+    }
+
+    /**
+     * Represents the number of (HTML) pages served by the site
+     */
+    public long pages() {
+        return layout.pages();
+    }
+
+    /**
+     * Represents the number of requests received so far
+     */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * Represents the number of conditional requests answered with 304 so far
+     */
+    public long notModified() {
+        return notModified.sum();
+    }
+
+    /**
+     * Answers the next given number of requests for the given path with 503 (Service Unavailable).
+     */
+    public void fail(String path, int requests) {
+        outages.put(path, new AtomicInteger(requests));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (exchange) {
+            final var path = exchange.getRequestURI().getPath();
+            final var outage = outages.get(path);
+            if (outage != null && outage.getAndDecrement() > 0) {
+                respond(exchange, 503, "text/html; charset=utf-8", html("Unavailable", "", "<p>try again</p>"));
+            } else if (path.startsWith(FILES)) {
+                respond(exchange, 200, "application/pdf", new byte[4 * 1024]);
+            } else if (path.startsWith(MISSING)) {
+                respond(exchange, 404, "text/html; charset=utf-8", html("Not Found", "", "<p>missing</p>"));
+            } else if (path.startsWith(REDIRECT + "/")) {
+                exchange.getResponseHeaders().set("location", path.substring(REDIRECT.length()));
+                exchange.sendResponseHeaders(301, -1);
+            } else {
+                final var level = level(path);
+                if (level < 0) {
+                    respond(exchange, 404, "text/html; charset=utf-8", html("Not Found", "", "<p>unknown</p>"));
+                    return;
+                }
+                if (chance(path, "slow") < layout.slow()) {
+                    Thread.sleep(layout.delay());
+                }
+                if (layout.validators()) {
+                    final var etag = "\"%x\"".formatted(layout.seed() ^ path.hashCode());
+                    exchange.getResponseHeaders().set("etag", etag);
+                    exchange.getResponseHeaders().set("cache-control", "no-cache");
+                    if (etag.equals(exchange.getRequestHeaders().getFirst("if-none-match"))) {
+                        notModified.increment();
+                        exchange.sendResponseHeaders(304, -1);
+                        return;
+                    }
+                }
+                respond(exchange, 200, "text/html; charset=utf-8", page(path, level));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the level of the page addressed by the given path or {@code -1} if there is no such page.
+     */
+    private int level(String path) {
+        if (path.equals("/")) {
+            return 0;
+        }
+        final var segments = path.substring(1).split("/", -1);
+        if (segments.length > layout.depth()) {
+            return -1;
+        }
+        for (final var segment : segments) {
+            try {
+                final var index = Integer.parseInt(segment);
+                if (index < 0 || index >= layout.fanOut()) {
+                    return -1;
+                }
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return segments.length;
+    }
+
+    private byte[] page(String path, int level) {
+        final var head = new StringBuilder();
+        final var body = new StringBuilder();
+        final var prefix = path.equals("/") ? "/" : path + "/";
+        if (layout.baseHref()) {
+            head.append("<base href=\"").append(prefix).append("\">");
+        }
+
+        // children
+        if (level < layout.depth()) {
+            for (int child = 0; child < layout.fanOut(); child++) {
+                final var childPath = prefix + child;
+                final String href;
+                if (chance(childPath, "redirect") < layout.redirects()) {
+                    href = REDIRECT + childPath;
+                } else {
+                    href = layout.baseHref() ? String.valueOf(child) : childPath;
+                }
+                body.append("<li><a class=\"child\" href=\"").append(href).append("\">")
+                        .append(childPath).append(hint(childPath) ? " " + HINT : "").append("</a></li>\n");
+            }
+        }
+
+        // distractions
+        for (int link = 0; link < layout.crossLinks(); link++) {
+            body.append("<li><a href=\"").append(randomPage(path, link)).append("\">elsewhere</a></li>\n");
+        }
+        if (chance(path, "files") < layout.nonHtml()) {
+            body.append("<li><a href=\"").append(FILES).append(path.hashCode() & 0xffff)
+                    .append(".pdf\">pdf</a></li>\n");
+        }
+        if (chance(path, "missing") < layout.missing()) {
+            body.append("<li><a href=\"").append(MISSING).append(path.hashCode() & 0xffff).append("\">gone</a></li>\n");
+        }
+        body.append("<li><a href=\"").append(HOME).append("\">home</a></li>\n");
+
+        if (path.equals(target)) {
+            body.append("<p>Our service: ").append(QUERY).append("</p>\n");
+        }
+        return html(path, head, "<ul>\n" + body + "</ul>");
+    }
+
+    /**
+     * Should the link to the given path carry the hint on the query?
+     */
+    private boolean hint(String path) {
+        return layout.hints() && (target.equals(path) || target.startsWith(path + "/")
+                || chance(path, "decoy") < layout.decoys());
+    }
+
+    private String randomPage(String path, int link) {
+        final var level = (int) (chance(path, "level-" + link) * (layout.depth() + 1));
+        final var result = new StringBuilder();
+        for (int i = 0; i < level; i++) {
+            result.append('/').append((int) (chance(path, "link-" + link + "-" + i) * layout.fanOut()));
+        }
+        return result.isEmpty() ? "/" : result.toString();
+    }
+
+    private static byte[] html(String title, CharSequence head, CharSequence body) {
+        return ("<!DOCTYPE html><html><head><title>" + title + "</title>" + head + "</head><body>\n"
+                + body + "\n</body></html>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("content-type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Deterministic pseudo random number in [0, 1) for the given path and purpose
+     */
+    private double chance(String path, String purpose) {
+        var hash = layout.seed() ^ (31L * path.hashCode() + purpose.hashCode());
+        // SplitMix64 finalizer
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        hash = hash ^ (hash >>> 31);
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+}
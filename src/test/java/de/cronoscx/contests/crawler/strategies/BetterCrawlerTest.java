@@ -0,0 +1,231 @@
+package de.cronoscx.contests.crawler.strategies;
+
+import de.cronoscx.contests.crawler.core.Assessor;
+import de.cronoscx.contests.crawler.core.FetchPolicy;
+import de.cronoscx.contests.crawler.core.Journal;
+import de.cronoscx.contests.crawler.core.Memory;
+import de.cronoscx.contests.crawler.core.Metrics;
+import de.cronoscx.contests.crawler.core.ResponseCache;
+import de.cronoscx.contests.crawler.core.Scout;
+import de.cronoscx.contests.crawler.core.Settings;
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite;
+import de.cronoscx.contests.crawler.fixtures.SyntheticSite.Layout;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.DisplayNameGenerator.ReplaceUnderscores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@DisplayName("Strategies :: BetterCrawler")
+@DisplayNameGeneration(ReplaceUnderscores.class)
+class BetterCrawlerTest {
+    private static final Layout DISTRACTING = Layout.tree(4, 3)
+            .withCrossLinks(2)
+            .withBaseHref()
+            .withNonHtml(0.2)
+            .withMissing(0.2)
+            .withRedirects(0.1)
+            .withSlow(0.05, Duration.ofMillis(50));
+
+    private static BetterCrawler crawler(int concurrency) {
+        return new BetterCrawler(new Memory(), new Assessor(SyntheticSite.HOST_PATTERN),
+                Settings.DEFAULT.withConcurrency(concurrency));
+    }
+
+    @Test
+    void must_find_query_on_distracting_site() throws IOException {
+        try (final var site = new SyntheticSite(DISTRACTING); final var underTest = crawler(16)) {
+            // given
+            final var source = site.root();
+
+            // when
+            final var actual = underTest.dig(source, SyntheticSite.QUERY);
+
+            // then
+            assertThat(actual).contains(site.target());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Memory.Mode.class)
+    void must_check_sources_again_after_they_failed(Memory.Mode mode) throws IOException {
+        final var policy = new FetchPolicy(1, 1, Duration.ZERO, Duration.ZERO, Duration.ofSeconds(30), 0);
+        try (final var site = new SyntheticSite(Layout.tree(3, 2));
+             final var underTest = new BetterCrawler(new Memory(mode), new Assessor(SyntheticSite.HOST_PATTERN),
+                     Settings.DEFAULT.withConcurrency(4).withFetchPolicy(policy));
+             final var exhausted = new BetterCrawler(new Memory(mode), new Assessor(SyntheticSite.HOST_PATTERN),
+                     Settings.DEFAULT.withConcurrency(4).withFetchPolicy(policy))) {
+            // given
+            final var target = site.target().getPath();
+            final var parent = target.substring(0, target.lastIndexOf('/'));
+            site.fail(parent, 1);
+            site.fail(target, 1);
+
+            // when
+            final var actual = underTest.dig(site.root(), SyntheticSite.QUERY);
+            site.fail(target, 2);
+            final var notFound = exhausted.dig(site.root(), SyntheticSite.QUERY);
+
+            // then
+            assertThat(actual).contains(site.target());
+            assertThat(underTest.metrics().snapshot().failures()).containsEntry(Metrics.Cause.STATUS, 2L);
+            assertThat(notFound).isEmpty();
+        }
+    }
+
+    @Test
+    void must_request_every_page_at_most_once() throws IOException {
+        // redirects are excluded: the redirected page might also be linked directly
+        try (final var site = new SyntheticSite(DISTRACTING.withRedirects(0).withTarget("/nowhere"));
+             final var underTest = crawler(16)) {
+            // given
+            final var source = site.root();
+
+            // when
+            final var actual = underTest.dig(source, SyntheticSite.QUERY);
+
+            // then
+            assertThat(actual).isEmpty();
+            assertThat(underTest.memory().size()).isGreaterThanOrEqualTo(site.pages());
+            assertThat(site.requests()).isEqualTo(underTest.memory().size());
+        }
+    }
+
+    @Test
+    void must_find_many_queries_within_a_single_traversal() throws IOException {
+        // redirects are excluded: the redirected page might also be linked directly
+        try (final var site = new SyntheticSite(DISTRACTING.withRedirects(0).withTarget("/0/1"));
+             final var underTest = crawler(16)) {
+            // given
+            final var source = site.root();
+            final var queries = Set.of(SyntheticSite.QUERY, "<title>/3/2</title>", "nowhere to be found");
+
+            // when
+            final var actual = underTest.dig(source, queries);
+
+            // then
+            assertThat(actual).containsOnly(
+                    entry(SyntheticSite.QUERY, site.target()),
+                    entry("<title>/3/2</title>", site.root().resolve("/3/2")));
+            assertThat(site.requests()).isEqualTo(underTest.memory().size());
+        }
+    }
+
+    @Test
+    void must_find_query_close_to_the_root_first() throws IOException {
+        try (final var site = new SyntheticSite(Layout.tree(4, 4).withTarget("/0")); final var underTest = crawler(1)) {
+            // given
+            final var source = site.root();
+
+            // when
+            final var actual = underTest.dig(source, SyntheticSite.QUERY);
+
+            // then
+            assertThat(actual).contains(site.target());
+            assertThat(site.requests()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void must_accept_results_of_the_crawl_by_their_snippet_without_fetching_them_again() throws IOException {
+        try (final var site = new SyntheticSite(DISTRACTING); final var underTest = crawler(16)) {
+            // given
+            final var result = underTest.dig(site.root(), SyntheticSite.QUERY).orElseThrow();
+            final var requests = site.requests();
+
+            // when
+            final var actual = underTest.verify(result, SyntheticSite.QUERY);
+            final var other = underTest.verify(site.root(), SyntheticSite.QUERY);
+
+            // then
+            assertThat(actual).isTrue();
+            assertThat(other).isFalse();
+            assertThat(site.requests()).isEqualTo(requests + 1);
+        }
+    }
+
+    @Test
+    void must_follow_hints_on_the_query_first() throws IOException {
+        final var layout = Layout.tree(4, 4).withHints(0.1);
+        final var breadthFirst = new Assessor(SyntheticSite.HOST_PATTERN).withScoring(Assessor.Scoring.BREADTH_FIRST);
+        try (final var site = new SyntheticSite(layout); final var underTest = crawler(1);
+             final var reference = new SyntheticSite(layout);
+             final var baseline = new BetterCrawler(new Memory(), breadthFirst, Settings.DEFAULT.withConcurrency(1))) {
+            // given
+            final var source = site.root();
+
+            // when
+            final var actual = underTest.dig(source, SyntheticSite.QUERY);
+            final var expected = baseline.dig(reference.root(), SyntheticSite.QUERY);
+
+            // then
+            assertThat(actual).contains(site.target());
+            assertThat(expected).contains(reference.target());
+            assertThat(site.requests()).isLessThan(reference.requests() / 4);
+        }
+    }
+
+    @Test
+    void must_resume_a_persisted_crawl_without_refetching(@TempDir Path directory) throws IOException {
+        try (final var site = new SyntheticSite(Layout.tree(4, 2).withTarget("/nowhere"))) {
+            // given: a previous run died after checking the root
+            final var journal = directory.resolve("journal.log");
+            try (final var memory = new Memory(Memory.Mode.FULL, new Journal(journal));
+                 final var scout = new Scout(memory)) {
+                memory.tryClaim(site.root());
+                scout.check(site.root(), SyntheticSite.QUERY);
+            }
+
+            // when
+            try (final var memory = new Memory(Memory.Mode.FULL, new Journal(journal));
+                 final var underTest = new BetterCrawler(memory, new Assessor(SyntheticSite.HOST_PATTERN),
+                         Settings.DEFAULT.withSpillDirectory(directory).withFrontierCapacity(1))) {
+                final var actual = underTest.dig(site.root(), SyntheticSite.QUERY);
+
+                // then
+                assertThat(actual).isEmpty();
+                assertThat(memory.size()).isEqualTo(site.pages());
+            }
+            assertThat(site.requests()).isEqualTo(site.pages());
+        }
+    }
+
+    @Test
+    void must_only_revalidate_unchanged_pages_when_crawling_again(@TempDir Path directory) throws IOException {
+        // one check at a time: no check is cancelled (and left uncached) when the target was found
+        try (final var site = new SyntheticSite(Layout.tree(4, 2).withValidators().withTarget("/3/3"))) {
+            // given
+            try (final var memory = new Memory(Memory.Mode.FULL, null, new ResponseCache(directory, 1_000_000));
+                 final var underTest = new BetterCrawler(memory, new Assessor(SyntheticSite.HOST_PATTERN),
+                         Settings.DEFAULT.withConcurrency(1))) {
+                underTest.dig(site.root(), SyntheticSite.QUERY);
+            }
+            final var downloads = site.requests();
+
+            // when
+            try (final var memory = new Memory(Memory.Mode.FULL, null, new ResponseCache(directory, 1_000_000));
+                 final var underTest = new BetterCrawler(memory, new Assessor(SyntheticSite.HOST_PATTERN),
+                         Settings.DEFAULT.withConcurrency(1))) {
+                final var actual = underTest.dig(site.root(), SyntheticSite.QUERY);
+                final var verified = underTest.verify(actual.orElseThrow(), SyntheticSite.QUERY);
+
+                // then
+                assertThat(actual).contains(site.target());
+                assertThat(verified).isTrue();
+                assertThat(site.notModified()).isEqualTo(site.requests() - downloads);
+                assertThat(memory.statistics()).contains("# cache misses: 0");
+            }
+        }
+    }
+
+}